@@ -0,0 +1,83 @@
+/*
+ * ExcelAndCSVToArray
+ * ExportBenchmark.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager.benchmark;
+
+import de.noisruker.filemanager.CSVExporter;
+import de.noisruker.filemanager.ExcelExporter;
+import de.noisruker.filemanager.WriteableContent;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst das Exportieren nach CSV, XLS und XLSX.
+ *
+ * @author Juhu1705
+ * @category Benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExportBenchmark {
+
+	@Param({ "csv", "xls", "xlsx" })
+	public String format;
+
+	@Param({ "1000", "10000" })
+	public int rows;
+
+	@Param({ "1.0", "0.3" })
+	public double density;
+
+	private WriteableContent content;
+	private Path directory;
+	private String pathfile;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		this.content = TableData.generate(this.rows, this.density);
+		this.directory = Files.createTempDirectory("tablefilemanager-jmh");
+		this.pathfile = this.directory.resolve("table").toString();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(Path.of(this.pathfile + "." + this.format));
+		Files.deleteIfExists(this.directory);
+	}
+
+	@Benchmark
+	public void write() throws Exception {
+		switch (this.format) {
+		case "csv":
+			CSVExporter.writeCSV(this.pathfile, this.content);
+			break;
+		case "xls":
+			ExcelExporter.writeXLS(this.pathfile, this.content);
+			break;
+		default:
+			ExcelExporter.writeXLSX(this.pathfile, this.content);
+			break;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * ExcelAndCSVToArray
+ * ImportBenchmark.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager.benchmark;
+
+import de.noisruker.filemanager.CSVImporter;
+import de.noisruker.filemanager.ExcelImporter;
+import de.noisruker.filemanager.WriteableContent;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst das Einlesen von CSV, XLS und XLSX Dateien.
+ *
+ * @author Juhu1705
+ * @category Benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ImportBenchmark {
+
+	@Param({ "csv", "xls", "xlsx" })
+	public String format;
+
+	@Param({ "1000", "10000" })
+	public int rows;
+
+	@Param({ "1.0", "0.3" })
+	public double density;
+
+	private Path file;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		this.file = TableData.export(TableData.generate(this.rows, this.density), this.format);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		TableData.delete(this.file);
+	}
+
+	@Benchmark
+	public WriteableContent read() throws Exception {
+		switch (this.format) {
+		case "csv":
+			return CSVImporter.readCSV(this.file.toString());
+		case "xls":
+			return ExcelImporter.readXLS(this.file.toString());
+		default:
+			return ExcelImporter.readXLSX(this.file.toString());
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * ExcelAndCSVToArray
+ * TableData.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager.benchmark;
+
+import de.noisruker.filemanager.CSVExporter;
+import de.noisruker.filemanager.ExcelExporter;
+import de.noisruker.filemanager.Vec2i;
+import de.noisruker.filemanager.WriteableContent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Erzeugt reproduzierbare Testdaten für die Benchmarks.
+ *
+ * @author Juhu1705
+ * @category Benchmark
+ */
+final class TableData {
+
+	static final int COLUMNS = 12;
+
+	private static final String[] WORDS = { "open", "closed", "pending", "Germany", "France", "Italy", "kg",
+			"m", "pcs", "lorem ipsum dolor", "sit amet", "consectetur" };
+
+	private TableData() {
+	}
+
+	/**
+	 * @param rows    Die Anzahl der Zeilen
+	 * @param density Der Anteil gesetzter Zellen zwischen 0 und 1
+	 * @return Eine Tabelle mit Kopfzeile, Texten und Zahlen
+	 */
+	static WriteableContent generate(int rows, double density) {
+		Random random = new Random(1705L);
+		WriteableContent content = new WriteableContent("Benchmark");
+
+		for (int x = 0; x < COLUMNS; x++)
+			content.addCell(new Vec2i(x, 0), "Column " + x);
+
+		for (int y = 1; y <= rows; y++) {
+			for (int x = 0; x < COLUMNS; x++) {
+				if (random.nextDouble() >= density)
+					continue;
+				String value = x % 3 == 0 ? WORDS[random.nextInt(WORDS.length)]
+						: "" + random.nextInt(1_000_000) / 100.0;
+				content.addCell(new Vec2i(x, y), value);
+			}
+		}
+		return content;
+	}
+
+	/**
+	 * Exportiert die Tabelle in eine temporäre Datei.
+	 *
+	 * @param content Die Tabelle
+	 * @param format  "csv", "xls" oder "xlsx"
+	 * @return Der Pfad der geschriebenen Datei
+	 */
+	static Path export(WriteableContent content, String format) throws IOException {
+		Path directory = Files.createTempDirectory("tablefilemanager-jmh");
+		String pathfile = directory.resolve("table").toString();
+
+		switch (format) {
+		case "csv":
+			CSVExporter.writeCSV(pathfile, content);
+			break;
+		case "xls":
+			ExcelExporter.writeXLS(pathfile, content);
+			break;
+		case "xlsx":
+			ExcelExporter.writeXLSX(pathfile, content);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown format " + format);
+		}
+		return Path.of(pathfile + "." + format);
+	}
+
+	/**
+	 * Löscht eine mit {@link #export(WriteableContent, String)} erzeugte Datei
+	 * samt Verzeichnis.
+	 */
+	static void delete(Path file) throws IOException {
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(file.getParent());
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * ExcelAndCSVToArray
+ * WriteableContentBenchmark.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager.benchmark;
+
+import de.noisruker.filemanager.Vec2i;
+import de.noisruker.filemanager.WriteableContent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst die grundlegenden Operationen auf einem {@link WriteableContent}.
+ *
+ * @author Juhu1705
+ * @category Benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WriteableContentBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int rows;
+
+	@Param({ "1.0", "0.3" })
+	public double density;
+
+	private WriteableContent content;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.content = TableData.generate(this.rows, this.density);
+	}
+
+	@Benchmark
+	public WriteableContent fill() {
+		return TableData.generate(this.rows, this.density);
+	}
+
+	@Benchmark
+	public String[][] grid() {
+		return this.content.getGrid();
+	}
+
+	@Benchmark
+	public String[][] reverseGrid() {
+		return this.content.getReverseGrid();
+	}
+
+	@Benchmark
+	public void lookup(Blackhole blackhole) {
+		Vec2i position = new Vec2i();
+		for (int y = 0; y <= this.rows; y++)
+			for (int x = 0; x < TableData.COLUMNS; x++)
+				blackhole.consume(this.content.getStringAt(position.set(x, y)));
+	}
+
+}
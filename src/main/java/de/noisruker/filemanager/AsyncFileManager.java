@@ -0,0 +1,294 @@
+/*
+ * ExcelAndCSVToArray
+ * AsyncFileManager.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Führt Im- und Exporte asynchron aus. Die Methoden entsprechen denen von
+ * {@link CSVImporter}, {@link ExcelImporter}, {@link CSVExporter} und
+ * {@link ExcelExporter}, kehren aber sofort mit einem
+ * {@link CompletableFuture} zurück. Exporte liefern den Pfad der geschriebenen
+ * Datei.
+ * <p>
+ * Die Aufgaben laufen auf einem austauschbaren {@link ExecutorService}. Ohne
+ * Angabe werden virtuelle Threads verwendet, sofern die Java Version sie
+ * unterstützt, sonst ein wachsender Pool aus Daemon Threads. Da große Im- und
+ * Exporte viel Speicher belegen, laufen höchstens so viele Aufgaben
+ * gleichzeitig, wie beim Erstellen angegeben. Weitere Aufgaben warten in einer
+ * Warteschlange und werden erst an den Executor übergeben, wenn eine laufende
+ * Aufgabe endet. Sie belegen bis dahin keinen Thread und blockieren den
+ * Aufrufer nicht.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public class AsyncFileManager implements Closeable {
+
+	/**
+	 * Die Anzahl gleichzeitiger Aufgaben, wenn keine angegeben wird
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final int maxConcurrent;
+	private final Semaphore permits;
+	private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+	private volatile boolean closed;
+
+	/**
+	 * Erstellt einen Manager auf virtuellen Threads mit
+	 * {@link #DEFAULT_MAX_CONCURRENT} gleichzeitigen Aufgaben.
+	 */
+	public AsyncFileManager() {
+		this(DEFAULT_MAX_CONCURRENT);
+	}
+
+	/**
+	 * Erstellt einen Manager auf virtuellen Threads.
+	 *
+	 * @param maxConcurrent Die Anzahl an Aufgaben, die gleichzeitig laufen dürfen
+	 */
+	public AsyncFileManager(int maxConcurrent) {
+		this(createDefaultExecutor(), true, maxConcurrent);
+	}
+
+	/**
+	 * Erstellt einen Manager auf dem gegebenen Executor. Der Executor wird von
+	 * {@link #close()} nicht beendet.
+	 *
+	 * @param executor      Der Executor, auf dem die Aufgaben laufen
+	 * @param maxConcurrent Die Anzahl an Aufgaben, die gleichzeitig laufen dürfen
+	 */
+	public AsyncFileManager(ExecutorService executor, int maxConcurrent) {
+		this(executor, false, maxConcurrent);
+	}
+
+	private AsyncFileManager(ExecutorService executor, boolean ownsExecutor, int maxConcurrent) {
+		if (executor == null)
+			throw new NullPointerException("executor");
+		if (maxConcurrent < 1)
+			throw new IllegalArgumentException("maxConcurrent must be at least 1, was " + maxConcurrent);
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.maxConcurrent = maxConcurrent;
+		this.permits = new Semaphore(maxConcurrent);
+	}
+
+	public CompletableFuture<WriteableContent> readCSV(String pathfile) {
+		return this.submit(() -> CSVImporter.readCSV(pathfile));
+	}
+
+	public CompletableFuture<WriteableContent> readCSV(String pathfile, char delimiter) {
+		return this.submit(() -> CSVImporter.readCSV(pathfile, delimiter));
+	}
+
+	public CompletableFuture<WriteableContent> readXLS(String pathfile) {
+		return this.readXLS(pathfile, FormulaMode.EVALUATE);
+	}
+
+	public CompletableFuture<WriteableContent> readXLS(String pathfile, FormulaMode formulaMode) {
+		return this.submit(() -> ExcelImporter.readXLS(pathfile, formulaMode));
+	}
+
+	public CompletableFuture<WriteableContent> readXLSX(String pathfile) {
+		return this.readXLSX(pathfile, FormulaMode.EVALUATE);
+	}
+
+	public CompletableFuture<WriteableContent> readXLSX(String pathfile, FormulaMode formulaMode) {
+		return this.submit(() -> ExcelImporter.readXLSX(pathfile, formulaMode));
+	}
+
+	public CompletableFuture<List<WriteableContent>> readXLSImproved(String pathfile) {
+		return this.submit(() -> ExcelImporter.readXLSImproved(pathfile));
+	}
+
+	public CompletableFuture<List<WriteableContent>> readXLSXImproved(String pathfile) {
+		return this.submit(() -> ExcelImporter.readXLSXImproved(pathfile));
+	}
+
+	/**
+	 * Liest eine .xlsx Datei gestreamt ein, siehe
+	 * {@link ExcelImporter#readXLSXStreamed(String)}.
+	 */
+	public CompletableFuture<WriteableContent> readXLSXStreamed(String pathfile) {
+		return this.submit(() -> ExcelImporter.readXLSXStreamed(pathfile));
+	}
+
+	public CompletableFuture<Path> writeCSV(String pathfile, WriteableContent... toWrite) {
+		return this.submit(() -> {
+			CSVExporter.writeCSV(pathfile, toWrite);
+			return Paths.get(pathfile + ".csv");
+		});
+	}
+
+	public CompletableFuture<Path> writeXLS(String pathfile, WriteableContent... toWrite) {
+		return this.submit(() -> {
+			ExcelExporter.writeXLS(pathfile, Arrays.asList(toWrite));
+			return Paths.get(pathfile + ".xls");
+		});
+	}
+
+	public CompletableFuture<Path> writeXLSX(String pathfile, WriteableContent... toWrite) {
+		return this.submit(() -> {
+			ExcelExporter.writeXLSX(pathfile, Arrays.asList(toWrite));
+			return Paths.get(pathfile + ".xlsx");
+		});
+	}
+
+	/**
+	 * Exportiert gestreamt in eine .xlsx Datei, siehe
+	 * {@link ExcelExporter#writeXLSXStreamed(String, WriteableContent...)}.
+	 */
+	public CompletableFuture<Path> writeXLSXStreamed(String pathfile, WriteableContent... toWrite) {
+		return this.submit(() -> {
+			ExcelExporter.writeXLSXStreamed(pathfile, toWrite);
+			return Paths.get(pathfile + ".xlsx");
+		});
+	}
+
+	/**
+	 * Führt eine beliebige Aufgabe unter derselben Begrenzung wie die Im- und
+	 * Exporte aus.
+	 *
+	 * @param task Die Aufgabe
+	 * @return Das Ergebnis der Aufgabe. Wirft die Aufgabe eine Exception, wird
+	 *         das Future mit dieser abgeschlossen.
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		if (this.closed) {
+			result.completeExceptionally(new RejectedExecutionException("AsyncFileManager is closed"));
+			return result;
+		}
+		this.pending.add(new Task<>(task, result));
+		this.dispatch();
+		return result;
+	}
+
+	/**
+	 * Übergibt wartende Aufgaben an den Executor, solange Plätze frei sind. Wird
+	 * nach jedem Einreihen und nach jeder beendeten Aufgabe aufgerufen. Da beide
+	 * Seiten erst die Warteschlange bzw. den Platz freigeben und dann den
+	 * anderen Teil prüfen, bleibt keine Aufgabe liegen.
+	 */
+	private void dispatch() {
+		while (!this.pending.isEmpty() && this.permits.tryAcquire()) {
+			Task<?> task = this.pending.poll();
+			if (task == null) {
+				this.permits.release();
+				continue;
+			}
+			try {
+				this.executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				this.permits.release();
+				task.result.completeExceptionally(e);
+			}
+		}
+
+		if (this.closed && this.ownsExecutor && this.pending.isEmpty()
+				&& this.permits.availablePermits() == this.maxConcurrent)
+			this.executor.shutdown();
+	}
+
+	/**
+	 * @return Die Anzahl an Aufgaben, die gerade noch starten könnten
+	 */
+	public int getAvailablePermits() {
+		return this.permits.availablePermits();
+	}
+
+	/**
+	 * Lehnt neue Aufgaben ab. Laufende und wartende Aufgaben werden noch
+	 * abgeschlossen. Wurde der Executor von diesem Manager erstellt, wird er
+	 * danach beendet.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		this.dispatch();
+	}
+
+	/**
+	 * Nutzt Executors.newVirtualThreadPerTaskExecutor(), wenn vorhanden. Der
+	 * Aufruf erfolgt über Reflection, damit die Bibliothek weiter auf älteren
+	 * Java Versionen läuft.
+	 */
+	private static ExecutorService createDefaultExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			AtomicInteger count = new AtomicInteger();
+			ThreadFactory factory = r -> {
+				Thread thread = new Thread(r, "filemanager-async-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+			return Executors.newCachedThreadPool(factory);
+		}
+	}
+
+	/**
+	 * Eine wartende Aufgabe. Sie gibt ihren Platz nach dem Ende frei und startet
+	 * die nächste wartende Aufgabe.
+	 */
+	private final class Task<T> implements Runnable {
+
+		private final Callable<T> callable;
+		private final CompletableFuture<T> result;
+
+		Task(Callable<T> callable, CompletableFuture<T> result) {
+			this.callable = callable;
+			this.result = result;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!this.result.isDone())
+					this.result.complete(this.callable.call());
+			} catch (Throwable t) {
+				this.result.completeExceptionally(t);
+			} finally {
+				AsyncFileManager.this.permits.release();
+				AsyncFileManager.this.dispatch();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * ExcelAndCSVToArray
+ * CSVChannelWriter.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Schreibt CSV Zeilen nach RFC 4180 in einen Kanal. Die Felder werden ohne
+ * Zwischen-Strings in einen Zeichenpuffer kopiert und mit dem angegebenen
+ * Zeichensatz in einen {@link ByteBuffer} kodiert, der als Ganzes in den Kanal
+ * geschrieben wird. Die Puffer werden nach {@link #close()} für den nächsten
+ * Writer aufbewahrt. Sie liegen bewusst nicht im direkten Speicher, da die
+ * Kodierer der JDK nur für Puffer mit Array ihren schnellen Pfad nutzen.
+ * <p>
+ * Felder, die das Trennzeichen, Anführungszeichen oder Zeilenumbrüche
+ * enthalten, werden in Anführungszeichen gesetzt, enthaltene
+ * Anführungszeichen verdoppelt. Zeilen enden mit CRLF.
+ *
+ * @author Juhu1705
+ * @category Export
+ */
+final class CSVChannelWriter implements Closeable {
+
+	static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_POOLED_BUFFERS = 16;
+	private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final char delimiter;
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	private ByteBuffer bytes;
+
+	private boolean firstField = true;
+	private boolean finished;
+
+	/**
+	 * @param channel   Der Kanal, in den geschrieben wird. Er wird von
+	 *                  {@link #close()} nicht geschlossen.
+	 * @param charset   Der Zeichensatz der Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 */
+	CSVChannelWriter(WritableByteChannel channel, Charset charset, char delimiter) {
+		if (delimiter == '"' || delimiter == '\r' || delimiter == '\n')
+			throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+		this.channel = channel;
+		this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.delimiter = delimiter;
+		this.bytes = borrow();
+	}
+
+	/**
+	 * Hängt ein Feld an die aktuelle Zeile an.
+	 *
+	 * @param value Der Inhalt des Feldes, null wird als leeres Feld geschrieben
+	 */
+	void field(String value) throws IOException {
+		if (!this.firstField)
+			this.put(this.delimiter);
+		this.firstField = false;
+
+		if (value == null || value.length() == 0)
+			return;
+
+		if (!this.needsQuotes(value)) {
+			this.put(value, 0, value.length());
+			return;
+		}
+
+		this.put('"');
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == '"') {
+				this.put(value, start, i + 1);
+				start = i;
+			}
+		}
+		this.put(value, start, value.length());
+		this.put('"');
+	}
+
+	/**
+	 * Beendet die aktuelle Zeile.
+	 */
+	void endRecord() throws IOException {
+		this.put('\r');
+		this.put('\n');
+		this.firstField = true;
+	}
+
+	/**
+	 * Kodiert alle gepufferten Zeichen und schreibt sie in den Kanal.
+	 */
+	void flush() throws IOException {
+		this.encode(false);
+		this.drain();
+	}
+
+	/**
+	 * Schreibt die restlichen Zeichen in den Kanal. Danach dürfen keine Felder
+	 * mehr geschrieben werden.
+	 */
+	void finish() throws IOException {
+		if (this.finished)
+			return;
+		this.finished = true;
+		this.encode(true);
+		while (this.encoder.flush(this.bytes).isOverflow())
+			this.drain();
+		this.drain();
+	}
+
+	/**
+	 * Schreibt die restlichen Zeichen und gibt den Puffer zurück. Der Kanal
+	 * bleibt offen.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.bytes == null)
+			return;
+		try {
+			this.finish();
+		} finally {
+			release(this.bytes);
+			this.bytes = null;
+		}
+	}
+
+	private boolean needsQuotes(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == this.delimiter || c == '"' || c == '\r' || c == '\n')
+				return true;
+		}
+		return false;
+	}
+
+	private void put(char c) throws IOException {
+		if (!this.chars.hasRemaining())
+			this.encode(false);
+		this.chars.put(c);
+	}
+
+	private void put(String value, int start, int end) throws IOException {
+		while (start < end) {
+			if (!this.chars.hasRemaining())
+				this.encode(false);
+			int length = Math.min(end - start, this.chars.remaining());
+			int position = this.chars.position();
+			value.getChars(start, start + length, this.chars.array(), position);
+			this.chars.position(position + length);
+			start += length;
+		}
+	}
+
+	/**
+	 * Kodiert den Zeichenpuffer in den Bytepuffer. Ist dieser voll, wird er in
+	 * den Kanal geschrieben. Ein am Ende getrenntes Surrogatpaar bleibt im
+	 * Zeichenpuffer, bis seine zweite Hälfte folgt.
+	 */
+	private void encode(boolean endOfInput) throws IOException {
+		this.chars.flip();
+		while (true) {
+			CoderResult result = this.encoder.encode(this.chars, this.bytes, endOfInput);
+			if (result.isOverflow())
+				this.drain();
+			else if (result.isUnderflow())
+				break;
+			else
+				result.throwException();
+		}
+		this.chars.compact();
+	}
+
+	private void drain() throws IOException {
+		this.bytes.flip();
+		while (this.bytes.hasRemaining())
+			this.channel.write(this.bytes);
+		this.bytes.clear();
+	}
+
+	private static ByteBuffer borrow() {
+		ByteBuffer buffer = BUFFERS.poll();
+		return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+	}
+
+	private static void release(ByteBuffer buffer) {
+		buffer.clear();
+		if (BUFFERS.size() < MAX_POOLED_BUFFERS)
+			BUFFERS.offer(buffer);
+	}
+
+}
@@ -19,13 +19,26 @@
 
 package de.noisruker.filemanager;
 
-import java.io.BufferedWriter;
+import de.noisruker.filemanager.metrics.Phase;
+
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.logging.Level;
-
-import static de.noisruker.logger.Logger.LOGGER;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Verwaltet das Exportieren eines {@link WriteableContent} nach CSV an den
@@ -36,51 +49,244 @@ import static de.noisruker.logger.Logger.LOGGER;
  */
 public class CSVExporter {
 
+	/**
+	 * Die Kompressionsstufe für {@link #writeCSVCompressed(String, WriteableContent...)}
+	 */
+	public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * Die Puffergröße des Komprimierers für
+	 * {@link #writeCSVCompressed(String, WriteableContent...)}
+	 */
+	public static final int DEFAULT_COMPRESSION_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Die Anzahl an Zeilen, nach denen beim Anhängen auf die Platte
+	 * synchronisiert wird
+	 */
+	public static final int APPEND_SYNC_ROWS = 1 << 14;
+
 	protected CSVExporter() {
 	}
 
 	public static void writeCSV(String pathfile, WriteableContent toWrite) throws IOException {
+		writeCSV(pathfile, CSVTokenizer.DEFAULT_DELIMITER, StandardCharsets.UTF_8, toWrite);
+	}
 
-		FileWriter fileWriter = null;
-		BufferedWriter writer = null;
+	public static void writeCSV(String pathfile, WriteableContent... toWrite) throws IOException {
+		writeCSV(pathfile, CSVTokenizer.DEFAULT_DELIMITER, StandardCharsets.UTF_8, toWrite);
+	}
 
-		try {
-			fileWriter = new FileWriter(new File(pathfile + ".csv"));
-			writer = new BufferedWriter(fileWriter);
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Erstellen einer .csv Datei", e);
-		}
+	/**
+	 * Exportiert die Inhalte in eine .csv Datei. Die Zeichen werden direkt in
+	 * wiederverwendete Puffer kodiert und über einen {@link FileChannel}
+	 * geschrieben. Felder mit Trennzeichen, Anführungszeichen oder
+	 * Zeilenumbrüchen werden in Anführungszeichen gesetzt. Mehrere Inhalte
+	 * werden durch zwei leere Zeilen getrennt.
+	 *
+	 * @param pathfile  Der Pfad der Datei ohne Endung
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param charset   Der Zeichensatz der Datei
+	 * @param toWrite   Die zu exportierenden Tabellen
+	 */
+	public static void writeCSV(String pathfile, char delimiter, Charset charset, WriteableContent... toWrite)
+			throws IOException {
+		File file = new File(pathfile + ".csv");
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
 
-		toWrite.writeCSV(writer);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				CSVChannelWriter writer = new CSVChannelWriter(channel, charset, delimiter)) {
+			write(writer, "writeCSV", toWrite);
 
-		writer.close();
+			PhaseTimer timer = PhaseTimer.start("writeCSV", Phase.FLUSH, null);
+			writer.finish();
+			timer.bytes(channel.size()).end();
+		}
+	}
 
+	public static void writeCSVCompressed(String pathfile, WriteableContent... toWrite) throws IOException {
+		writeCSVCompressed(pathfile, CSVTokenizer.DEFAULT_DELIMITER, StandardCharsets.UTF_8,
+				DEFAULT_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_BUFFER_SIZE, toWrite);
 	}
 
-	public static void writeCSV(String pathfile, WriteableContent... toWrite) throws IOException {
+	/**
+	 * Exportiert die Inhalte gzip komprimiert in eine .csv.gz Datei. Die Daten
+	 * werden beim Schreiben komprimiert, es entsteht keine unkomprimierte
+	 * Zwischendatei. {@link CSVImporter} erkennt solche Dateien beim Lesen
+	 * selbst.
+	 *
+	 * @param pathfile   Der Pfad der Datei ohne Endung
+	 * @param delimiter  Das Trennzeichen zwischen den Feldern
+	 * @param charset    Der Zeichensatz der Datei
+	 * @param level      Die Kompressionsstufe von 0 bis 9 oder
+	 *                   {@link Deflater#DEFAULT_COMPRESSION}. Niedrige Stufen
+	 *                   sind schneller, hohe erzeugen kleinere Dateien.
+	 * @param bufferSize Die Größe des Puffers für die komprimierten Daten
+	 * @param toWrite    Die zu exportierenden Tabellen
+	 */
+	public static void writeCSVCompressed(String pathfile, char delimiter, Charset charset, int level,
+			int bufferSize, WriteableContent... toWrite) throws IOException {
+		if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+				&& level != Deflater.DEFAULT_COMPRESSION)
+			throw new IllegalArgumentException("Invalid compression level: " + level);
+
+		File file = new File(pathfile + ".csv.gz");
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
 
-		FileWriter fileWriter = null;
-		BufferedWriter writer = null;
+		try (LeveledGZIPOutputStream output = new LeveledGZIPOutputStream(new FileOutputStream(file), bufferSize,
+				level); CSVChannelWriter writer = new CSVChannelWriter(Channels.newChannel(output), charset, delimiter)) {
+			write(writer, "writeCSVCompressed", toWrite);
+
+			PhaseTimer timer = PhaseTimer.start("writeCSVCompressed", Phase.FLUSH, null);
+			writer.finish();
+			output.finish();
+			timer.bytes(file.length()).end();
+		}
+	}
 
-		try {
-			fileWriter = new FileWriter(new File(pathfile + ".csv"));
-			writer = new BufferedWriter(fileWriter);
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Erstellen einer .csv Datei", e);
+	/**
+	 * Schreibt die Inhalte nacheinander, getrennt durch zwei leere Zeilen.
+	 */
+	private static void write(CSVChannelWriter writer, String operation, WriteableContent... toWrite)
+			throws IOException {
+		for (int i = 0; i < toWrite.length; i++) {
+			if (i > 0) {
+				writer.endRecord();
+				writer.endRecord();
+			}
+			PhaseTimer timer = PhaseTimer.start(operation, Phase.MATERIALIZE, toWrite[i].getName());
+			toWrite[i].writeCSV(writer);
+			timer.rows(toWrite[i].cells().getMaxY() + 1).cells(toWrite[i].getCellCount()).end();
 		}
+	}
+
+	public static void appendCSV(String pathfile, WriteableContent toAppend) throws IOException {
+		appendCSV(pathfile, toAppend, 0, Integer.MAX_VALUE);
+	}
 
-		for (WriteableContent writeable : toWrite) {
-			writeable.writeCSV(writer);
-			try {
-				writer.newLine();
-				writer.newLine();
-			} catch (IOException e) {
-				LOGGER.log(Level.WARNING, "Exception caused while exporting data: ", e);
+	public static void appendCSV(String pathfile, WriteableContent toAppend, int fromRow, int toRow)
+			throws IOException {
+		appendCSV(pathfile, toAppend, fromRow, toRow, CSVTokenizer.DEFAULT_DELIMITER, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Hängt die Zeilen fromRow bis ausschließlich toRow an eine bestehende .csv
+	 * Datei an. Der Rest der Datei wird weder gelesen noch neu geschrieben.
+	 * <p>
+	 * Als Kopfzeilen gelten die Zeilen bis einschließlich
+	 * {@link WriteableContent#getStartTable()}. Ist die Datei neu oder leer,
+	 * werden sie zuerst geschrieben. Sonst müssen sie mit dem Anfang der Datei
+	 * übereinstimmen und werden nicht erneut angehängt. Endet die Datei nicht
+	 * mit einem Zeilenumbruch, wird einer ergänzt. Alle
+	 * {@value #APPEND_SYNC_ROWS} Zeilen und am Ende werden die Daten auf die
+	 * Platte synchronisiert.
+	 *
+	 * @param pathfile  Der Pfad der Datei ohne Endung
+	 * @param toAppend  Der Inhalt, aus dem die Zeilen stammen
+	 * @param fromRow   Die erste anzuhängende Zeile des Inhalts
+	 * @param toRow     Die Zeile hinter der letzten anzuhängenden Zeile
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param charset   Der Zeichensatz der Datei, muss ASCII-kompatibel sein
+	 * @throws IOException Wenn die Kopfzeilen der Datei nicht zum Inhalt passen
+	 *                     oder nicht geschrieben werden konnte
+	 */
+	public static void appendCSV(String pathfile, WriteableContent toAppend, int fromRow, int toRow, char delimiter,
+			Charset charset) throws IOException {
+		File file = new File(pathfile + ".csv");
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+
+		int headerRows = toAppend.getStartTable() + 1;
+		int from = Math.max(fromRow, headerRows);
+		int to = Math.min(toRow, toAppend.cells().getMaxY() + 1);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			if (size > 0)
+				checkHeader(file, toAppend, headerRows, delimiter, charset);
+			channel.position(size);
+
+			PhaseTimer timer = PhaseTimer.start("appendCSV", Phase.MATERIALIZE, toAppend.getName());
+			try (CSVChannelWriter writer = new CSVChannelWriter(channel, charset, delimiter)) {
+				if (size == 0)
+					toAppend.writeCSV(writer, 0, headerRows);
+				else if (!endsWithLineBreak(channel, size))
+					writer.endRecord();
+
+				for (int y = from; y < to; y += APPEND_SYNC_ROWS) {
+					toAppend.writeCSV(writer, y, Math.min(to, y + APPEND_SYNC_ROWS));
+					writer.flush();
+					channel.force(false);
+				}
 			}
+			timer.rows(Math.max(0, to - from)).end();
+
+			timer = PhaseTimer.start("appendCSV", Phase.FLUSH, null);
+			channel.force(false);
+			timer.bytes(channel.size() - size).end();
+		}
+	}
+
+	private static boolean endsWithLineBreak(FileChannel channel, long size) throws IOException {
+		ByteBuffer last = ByteBuffer.allocate(1);
+		channel.read(last, size - 1);
+		return last.get(0) == '\n';
+	}
+
+	/**
+	 * Vergleicht die ersten Zeilen der Datei mit den Kopfzeilen des Inhalts.
+	 * Leere Felder am Zeilenende werden dabei ignoriert.
+	 */
+	private static void checkHeader(File file, WriteableContent content, int headerRows, char delimiter,
+			Charset charset) throws IOException {
+		List<String[]> rows = new ArrayList<>(headerRows);
+		CSVTokenizer tokenizer = new CSVTokenizer(delimiter, (y, cells) -> {
+			if (rows.size() < headerRows)
+				rows.add(cells);
+		});
 
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), charset)) {
+			char[] buffer = new char[1 << 13];
+			int read;
+			while (rows.size() < headerRows && (read = reader.read(buffer)) != -1)
+				tokenizer.feed(buffer, 0, read);
+			if (rows.size() < headerRows)
+				tokenizer.finish();
+		}
+
+		for (int y = 0; y < headerRows; y++) {
+			List<String> expected = new ArrayList<>();
+			for (int x = 0; x <= content.cells().getMaxX(); x++) {
+				String value = content.cells().get(x, y);
+				expected.add(value == null ? "" : value);
+			}
+			List<String> actual = y < rows.size() ? new ArrayList<>(Arrays.asList(rows.get(y))) : new ArrayList<>();
+			trimEmpty(expected);
+			trimEmpty(actual);
+			if (!expected.equals(actual))
+				throw new IOException("CSV header of " + file + " does not match, expected " + expected + " but was "
+						+ actual);
 		}
+	}
+
+	private static void trimEmpty(List<String> row) {
+		while (!row.isEmpty() && (row.get(row.size() - 1) == null || row.get(row.size() - 1).isEmpty()))
+			row.remove(row.size() - 1);
+	}
 
-		writer.close();
+	/**
+	 * Ein {@link GZIPOutputStream} mit einstellbarer Kompressionsstufe.
+	 */
+	private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+		LeveledGZIPOutputStream(OutputStream out, int size, int level) throws IOException {
+			super(out, size);
+			this.def.setLevel(level);
+		}
 
 	}
 
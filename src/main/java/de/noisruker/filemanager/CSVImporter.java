@@ -19,11 +19,15 @@
 
 package de.noisruker.filemanager;
 
+import de.noisruker.filemanager.metrics.Phase;
 import de.noisruker.logger.Logger;
 
 import java.io.*;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Importiert eine CSV Datei aus dem mitgegebenen Pfad.
@@ -34,39 +38,187 @@ import java.util.logging.Level;
  */
 public class CSVImporter {
 
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int PEEK_BUFFER_SIZE = 1 << 13;
+	private static final int GZIP_MIN_SIZE = 18;
+
 	protected CSVImporter() {
 	}
 
 	public static WriteableContent readCSV(String pathfile) throws IOException, URISyntaxException {
-		WriteableContent writeable = new WriteableContent();
+		return readCSV(pathfile, CSVTokenizer.DEFAULT_DELIMITER);
+	}
+
+	/**
+	 * Liest eine CSV Datei mit dem angegebenen Trennzeichen ein. Felder in
+	 * Anführungszeichen dürfen das Trennzeichen, Zeilenumbrüche und verdoppelte
+	 * Anführungszeichen enthalten. Gzip komprimierte Dateien werden unabhängig
+	 * von ihrer Endung erkannt und beim Lesen entpackt.
+	 *
+	 * @param pathfile  Der Pfad zur Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @return Der Inhalt der Datei
+	 */
+	public static WriteableContent readCSV(String pathfile, char delimiter) throws IOException, URISyntaxException {
+		WriteableContent writeable = new WriteableContent().enableDictionaryEncoding();
+
+		readCSV(pathfile, delimiter, (y, cells) -> writeable.addLine(new Vec2i(0, y), cells));
+
+		return writeable;
+	}
+
+	/**
+	 * Liest eine CSV Datei ein und gibt jede Zeile direkt an den Listener weiter.
+	 *
+	 * @param pathfile  Der Pfad zur Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param listener  Empfängt die gelesenen Zeilen
+	 */
+	public static void readCSV(String pathfile, char delimiter, RowListener listener)
+			throws IOException, URISyntaxException {
+		readCSV(pathfile, delimiter, new ImportOptions(), listener);
+	}
+
+	/**
+	 * Liest nur die in den Optionen ausgewählten Spalten und Zeilen einer CSV
+	 * Datei ein.
+	 *
+	 * @param pathfile  Der Pfad zur Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param options   Die zu übernehmenden Spalten und Zeilen
+	 * @return Der ausgewählte Inhalt der Datei
+	 */
+	public static WriteableContent readCSV(String pathfile, char delimiter, ImportOptions options)
+			throws IOException, URISyntaxException {
+		WriteableContent writeable = new WriteableContent().enableDictionaryEncoding();
+
+		readCSV(pathfile, delimiter, options, (y, cells) -> writeable.addLine(new Vec2i(0, y), cells));
+
+		return writeable;
+	}
+
+	/**
+	 * Liest eine CSV Datei ein und gibt die in den Optionen ausgewählten Spalten
+	 * und Zeilen direkt an den Listener weiter. Nicht benötigte Felder werden
+	 * nicht in Text umgewandelt, nach dem Zeilenbereich wird das Lesen
+	 * abgebrochen.
+	 *
+	 * @param pathfile  Der Pfad zur Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param options   Die zu übernehmenden Spalten und Zeilen
+	 * @param listener  Empfängt die übernommenen Zeilen
+	 */
+	public static void readCSV(String pathfile, char delimiter, ImportOptions options, RowListener listener)
+			throws IOException, URISyntaxException {
+		PhaseTimer timer = PhaseTimer.start("readCSV", Phase.PARSE, null);
+		CountingRowListener counting = new CountingRowListener(listener);
+		RowProjection projection = options.isAll() ? null : new RowProjection(options, counting);
+		CSVTokenizer tokenizer = projection == null ? new CSVTokenizer(delimiter, counting)
+				: new CSVTokenizer(delimiter, projection);
+
+		try (Reader reader = new InputStreamReader(getInput(pathfile), StandardCharsets.UTF_8)) {
+			char[] buffer = new char[BUFFER_SIZE];
+			int read;
+			while ((projection == null || !projection.isDone()) && (read = reader.read(buffer)) != -1)
+				tokenizer.feed(buffer, 0, read);
+		}
+
+		tokenizer.finish();
+		timer.rows(counting.getRows()).cells(counting.getCells()).bytes(ExcelImporter.fileSize(pathfile)).end();
+	}
 
-		InputStreamReader fileReader = new InputStreamReader(getInput(pathfile), "UTF8");
-		BufferedReader reader = new BufferedReader(fileReader);
+	/**
+	 * Liest eine UTF-8 CSV Datei mit mehreren Threads ein, siehe
+	 * {@link #readCSVParallel(String, char, ForkJoinPool)}.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @return Der Inhalt der Datei
+	 */
+	public static WriteableContent readCSVParallel(String pathfile) throws IOException, URISyntaxException {
+		return readCSVParallel(pathfile, CSVTokenizer.DEFAULT_DELIMITER, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Liest eine UTF-8 CSV Datei mit mehreren Threads ein. Die Datei wird in den
+	 * Speicher gemappt, an Zeilenenden außerhalb von Anführungszeichen in Blöcke
+	 * geteilt und die Blöcke werden parallel auf dem Pool gelesen. Die
+	 * Zeilennummern entsprechen denen von {@link #readCSV(String, char)}.
+	 * Ressourcen aus dem Classpath und gzip komprimierte Dateien werden
+	 * nacheinander gelesen, da sie sich nicht mappen lassen. Bis zum
+	 * Zusammenführen belegen die Blöcke kurzzeitig etwa doppelt so viel
+	 * Speicher wie die fertige Tabelle.
+	 *
+	 * @param pathfile  Der Pfad zur Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param pool      Der Pool, auf dem die Blöcke gelesen werden
+	 * @return Der Inhalt der Datei
+	 */
+	public static WriteableContent readCSVParallel(String pathfile, char delimiter, ForkJoinPool pool)
+			throws IOException, URISyntaxException {
+		File file = new File(pathfile);
+		if (ExcelImporter.class.getClassLoader().getResource(pathfile) != null || !file.isFile() || isGzip(file))
+			return readCSV(pathfile, delimiter);
+
+		return ParallelCSVReader.read(file.toPath(), delimiter, pool);
+	}
+
+	public static SheetPreview peekCSV(String pathfile, int rows) throws IOException, URISyntaxException {
+		return peekCSV(pathfile, CSVTokenizer.DEFAULT_DELIMITER, rows);
+	}
 
-		String zeile = "";
-		int y = 0, x;
+	/**
+	 * Liest nur die ersten Zeilen einer CSV Datei und bricht danach ab. Die
+	 * Anzahl der Zeilen wird aus der Größe der Datei und der Länge der gelesenen
+	 * Zeilen geschätzt, sofern die Datei nicht bereits vollständig gelesen
+	 * wurde.
+	 *
+	 * @param pathfile  Der Pfad zur Datei
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param rows      Die Anzahl der Zeilen
+	 * @return Die Vorschau der Datei
+	 */
+	public static SheetPreview peekCSV(String pathfile, char delimiter, int rows)
+			throws IOException, URISyntaxException {
+		if (rows < 0)
+			throw new IllegalArgumentException("Invalid row count: " + rows);
 
-		while (reader.ready() && (zeile = reader.readLine()) != null) {
-			x = 0;
+		PhaseTimer timer = PhaseTimer.start("peekCSV", Phase.PARSE, null);
+		WriteableContent writeable = new WriteableContent().enableDictionaryEncoding();
+		RowProjection projection = new RowProjection(new ImportOptions().rows(0, rows),
+				(y, cells) -> writeable.addLine(new Vec2i(0, y), cells));
+		CSVTokenizer tokenizer = new CSVTokenizer(delimiter, projection);
 
-			String parameter = "";
-			for (char c : zeile.toCharArray()) {
-				if (c == ';') {
-					writeable.addCell(new Vec2i(x++, y), parameter);
-					parameter = "";
-				} else
-					parameter += c;
+		long chars = 0;
+		boolean complete = false;
+		try (Reader reader = new InputStreamReader(getInput(pathfile), StandardCharsets.UTF_8)) {
+			char[] buffer = new char[PEEK_BUFFER_SIZE];
+			while (!projection.isDone()) {
+				int read = reader.read(buffer);
+				if (read == -1) {
+					complete = true;
+					break;
+				}
+				tokenizer.feed(buffer, 0, read);
+				chars += read;
 			}
-			writeable.addCell(new Vec2i(x++, y), parameter);
-			y++;
 		}
 
-		reader.close();
+		if (complete)
+			tokenizer.finish();
 
-		return writeable;
+		long size = contentSize(pathfile, ExcelImporter.fileSize(pathfile));
+		Vec2i dimension = null;
+		if (complete)
+			dimension = new Vec2i(writeable.getMaxLength().x, tokenizer.getRowCount() - 1);
+		else if (size > 0 && tokenizer.getRowCount() > 0)
+			dimension = new Vec2i(writeable.getMaxLength().x,
+					(int) Math.min(Integer.MAX_VALUE, size * tokenizer.getRowCount() / chars) - 1);
+
+		timer.rows(projection.getRow()).bytes(chars).end();
+		return new SheetPreview("", writeable, dimension);
 	}
 
-	private static InputStream getInput(String name) throws URISyntaxException, FileNotFoundException {
+	private static InputStream getInput(String name) throws URISyntaxException, IOException {
 		InputStream output;
 		output = ExcelImporter.class.getClassLoader().getResourceAsStream(name);
 
@@ -78,7 +230,52 @@ public class CSVImporter {
 			}
 		}
 
-		return output;
+		return output == null ? null : decompress(output);
+	}
+
+	/**
+	 * Erkennt gzip komprimierte Daten an ihren ersten beiden Bytes und entpackt
+	 * sie beim Lesen. Andere Daten werden unverändert durchgereicht.
+	 *
+	 * @param input Die gelesenen Daten
+	 * @return Die entpackten Daten
+	 */
+	static InputStream decompress(InputStream input) throws IOException {
+		PushbackInputStream pushback = new PushbackInputStream(input, 2);
+		byte[] magic = new byte[2];
+		int read = pushback.readNBytes(magic, 0, 2);
+		pushback.unread(magic, 0, read);
+		return read == 2 && isGzip(magic[0], magic[1]) ? new GZIPInputStream(pushback, BUFFER_SIZE) : pushback;
+	}
+
+	private static boolean isGzip(int first, int second) {
+		return ((first & 0xff) | (second & 0xff) << 8) == GZIPInputStream.GZIP_MAGIC;
+	}
+
+	/**
+	 * @return Ob die Datei gzip komprimiert ist
+	 */
+	static boolean isGzip(File file) throws IOException {
+		try (InputStream input = new FileInputStream(file)) {
+			return isGzip(input.read(), input.read());
+		}
+	}
+
+	/**
+	 * @param pathfile Der Pfad zur Datei
+	 * @param size     Die Größe der Datei
+	 * @return Die Größe der entpackten Daten. Bei gzip Dateien steht sie in den
+	 *         letzten vier Bytes, allerdings nur modulo 4 GiB.
+	 */
+	private static long contentSize(String pathfile, long size) throws IOException {
+		File file = new File(pathfile);
+		if (size < GZIP_MIN_SIZE || !file.isFile() || !isGzip(file))
+			return size;
+
+		try (RandomAccessFile gzip = new RandomAccessFile(file, "r")) {
+			gzip.seek(size - 4);
+			return Integer.toUnsignedLong(Integer.reverseBytes(gzip.readInt()));
+		}
 	}
 
 }
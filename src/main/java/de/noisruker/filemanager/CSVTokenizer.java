@@ -0,0 +1,215 @@
+/*
+ * ExcelAndCSVToArray
+ * CSVTokenizer.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import java.util.Arrays;
+
+/**
+ * Zerlegt CSV Daten nach RFC 4180 in Zeilen. Felder in Anführungszeichen
+ * dürfen Trennzeichen, Zeilenumbrüche und verdoppelte Anführungszeichen
+ * enthalten. Die Daten können in beliebig großen Blöcken übergeben werden, der
+ * Zustand bleibt zwischen den Blöcken erhalten.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class CSVTokenizer {
+
+	static final char DEFAULT_DELIMITER = ';';
+
+	static final char QUOTE = '"';
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	static final int FIELD_START = 0;
+	static final int UNQUOTED = 1;
+	static final int QUOTED = 2;
+	static final int QUOTE_IN_QUOTED = 3;
+
+	private final char delimiter;
+	private final RowListener listener;
+	private final RowProjection projection;
+
+	private final StringBuilder field = new StringBuilder();
+	private String[] row = new String[16];
+	private int length;
+
+	private int state = FIELD_START;
+	private boolean recordStarted;
+	private boolean skipLineFeed;
+	private boolean firstChar;
+	private int y;
+
+	/**
+	 * @param delimiter Das Trennzeichen zwischen den Feldern
+	 * @param listener  Empfängt die fertigen Zeilen
+	 */
+	CSVTokenizer(char delimiter, RowListener listener) {
+		this(delimiter, listener, true);
+	}
+
+	/**
+	 * @param delimiter  Das Trennzeichen zwischen den Feldern
+	 * @param projection Empfängt die fertigen Zeilen. Felder, die sie nicht
+	 *                   übernimmt, werden nicht in Text umgewandelt.
+	 */
+	CSVTokenizer(char delimiter, RowProjection projection) {
+		this(delimiter, projection, projection, true);
+	}
+
+	/**
+	 * @param delimiter         Das Trennzeichen zwischen den Feldern
+	 * @param listener          Empfängt die fertigen Zeilen
+	 * @param skipByteOrderMark Ob ein Byte Order Mark am Anfang übersprungen
+	 *                          werden soll. Nur sinnvoll am Anfang einer Datei.
+	 */
+	CSVTokenizer(char delimiter, RowListener listener, boolean skipByteOrderMark) {
+		this(delimiter, listener, null, skipByteOrderMark);
+	}
+
+	private CSVTokenizer(char delimiter, RowListener listener, RowProjection projection, boolean skipByteOrderMark) {
+		if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n')
+			throw new IllegalArgumentException("Invalid CSV delimiter: " + (int) delimiter);
+		this.delimiter = delimiter;
+		this.listener = listener;
+		this.projection = projection;
+		this.firstChar = skipByteOrderMark;
+	}
+
+	/**
+	 * Verarbeitet den nächsten Block an Zeichen.
+	 *
+	 * @param buffer Die Zeichen
+	 * @param offset Der Start im Array
+	 * @param count  Die Anzahl an Zeichen
+	 */
+	void feed(char[] buffer, int offset, int count) {
+		int i = offset;
+		int end = offset + count;
+
+		if (this.firstChar && i < end) {
+			this.firstChar = false;
+			if (buffer[i] == BYTE_ORDER_MARK)
+				i++;
+		}
+
+		while (i < end) {
+			char c = buffer[i];
+
+			if (this.skipLineFeed) {
+				this.skipLineFeed = false;
+				if (c == '\n') {
+					i++;
+					continue;
+				}
+			}
+
+			switch (this.state) {
+			case FIELD_START:
+				this.recordStarted = true;
+				if (c == QUOTE) {
+					this.state = QUOTED;
+					i++;
+					break;
+				}
+				// Das Zeichen gehört bereits zum Feld und wird dort gelesen
+				this.state = UNQUOTED;
+				continue;
+			case UNQUOTED: {
+				int start = i;
+				while (i < end && (c = buffer[i]) != this.delimiter && c != '\r' && c != '\n')
+					i++;
+				this.field.append(buffer, start, i - start);
+				if (i < end) {
+					i++;
+					if (c == this.delimiter)
+						this.endField();
+					else
+						this.endRecord(c);
+				}
+				break;
+			}
+			case QUOTED: {
+				int start = i;
+				while (i < end && buffer[i] != QUOTE)
+					i++;
+				this.field.append(buffer, start, i - start);
+				if (i < end) {
+					this.state = QUOTE_IN_QUOTED;
+					i++;
+				}
+				break;
+			}
+			case QUOTE_IN_QUOTED:
+				i++;
+				if (c == QUOTE) {
+					this.field.append(QUOTE);
+					this.state = QUOTED;
+				} else if (c == this.delimiter) {
+					this.endField();
+				} else if (c == '\r' || c == '\n') {
+					this.endRecord(c);
+				} else {
+					// Text nach dem schließenden Anführungszeichen wird übernommen
+					this.field.append(c);
+					this.state = UNQUOTED;
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unknown CSV state " + this.state);
+			}
+		}
+	}
+
+	/**
+	 * Gibt die letzte Zeile weiter, falls die Daten nicht mit einem
+	 * Zeilenumbruch enden.
+	 */
+	void finish() {
+		if (this.recordStarted || this.state != FIELD_START)
+			this.endRecord('\n');
+	}
+
+	/**
+	 * @return Die Anzahl der bisher gelesenen Zeilen
+	 */
+	int getRowCount() {
+		return this.y;
+	}
+
+	private void endField() {
+		if (this.length == this.row.length)
+			this.row = Arrays.copyOf(this.row, this.length << 1);
+		if (this.projection == null || this.projection.wants(this.y, this.length))
+			this.row[this.length] = this.field.toString();
+		this.length++;
+		this.field.setLength(0);
+		this.state = FIELD_START;
+	}
+
+	private void endRecord(char terminator) {
+		this.endField();
+		this.listener.row(this.y++, Arrays.copyOf(this.row, this.length));
+		Arrays.fill(this.row, 0, this.length, null);
+		this.length = 0;
+		this.recordStarted = false;
+		this.skipLineFeed = terminator == '\r';
+	}
+
+}
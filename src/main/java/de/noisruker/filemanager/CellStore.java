@@ -0,0 +1,433 @@
+/*
+ * ExcelAndCSVToArray
+ * CellStore.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.Arrays;
+
+/**
+ * Speichert die Zellen eines {@link WriteableContent}. Die Zeilen liegen als
+ * Arrays in Seiten zu je {@value #PAGE_SIZE} Zeilen vor und wachsen bei Bedarf.
+ * Eine Zelle kostet so nur eine Referenz im Zeilen-Array, statt eines
+ * {@link Vec2i} und eines Map-Eintrags.
+ * <p>
+ * Zahlen, Wahrheitswerte und Datumsangaben werden nicht als Text gespeichert.
+ * Für Zeilen mit solchen Zellen gibt es parallel ein double und ein byte Array
+ * mit Wert und {@link ValueType}. Im Text-Array steht für diese Zellen nur der
+ * gemeinsame Platzhalter {@link #TYPED}.
+ * <p>
+ * Optional führt jede Spalte ein {@link StringDictionary}, damit wiederholte
+ * Texte wie Status oder Einheiten nur einmal im Speicher liegen.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+final class CellStore {
+
+	static final int PAGE_SHIFT = 10;
+	static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private static final int MIN_ROW_CAPACITY = 8;
+
+	/**
+	 * Markiert Zellen, deren Wert in den typisierten Arrays steht. Wird nur über
+	 * die Identität verglichen.
+	 */
+	static final String TYPED = new String("");
+
+	private String[][][] pages = new String[0][][];
+	private double[][][] numberPages = new double[0][][];
+	private byte[][][] typePages = new byte[0][][];
+	private int size;
+
+	private int maxX = -1, maxY = -1;
+	private boolean boundsValid = true;
+
+	private StringDictionary[] dictionaries;
+	private int dictionaryLimit;
+
+	/**
+	 * @param x Die Spalte
+	 * @param y Die Zeile
+	 * @return Der Inhalt der Zelle als Text oder null, wenn die Zelle leer ist
+	 */
+	String get(int x, int y) {
+		String[] row = this.getRow(y);
+		if (row == null || x < 0 || x >= row.length)
+			return null;
+		return row[x] == TYPED ? format(this.getType(x, y), this.getNumber(x, y)) : row[x];
+	}
+
+	/**
+	 * Gibt das interne Array der Zeile zurück. Das Array kann länger als die
+	 * Zeile sein, nicht gesetzte Zellen sind null und typisierte Zellen
+	 * {@link #TYPED}.
+	 *
+	 * @param y Die Zeile
+	 * @return Das Zeilen-Array oder null, wenn die Zeile leer ist
+	 */
+	String[] getRow(int y) {
+		if (y < 0)
+			return null;
+		int page = y >>> PAGE_SHIFT;
+		if (page >= this.pages.length || this.pages[page] == null)
+			return null;
+		return this.pages[page][y & PAGE_MASK];
+	}
+
+	/**
+	 * @param x Die Spalte
+	 * @param y Die Zeile
+	 * @return Die Art des Wertes oder null, wenn die Zelle leer ist
+	 */
+	ValueType getType(int x, int y) {
+		String[] row = this.getRow(y);
+		if (row == null || x < 0 || x >= row.length || row[x] == null)
+			return null;
+		if (row[x] != TYPED)
+			return ValueType.STRING;
+		return ValueType.of(this.typePages[y >>> PAGE_SHIFT][y & PAGE_MASK][x]);
+	}
+
+	/**
+	 * @param x Die Spalte
+	 * @param y Die Zeile
+	 * @return Der gespeicherte Zahlenwert einer typisierten Zelle, sonst 0
+	 */
+	double getNumber(int x, int y) {
+		String[] row = this.getRow(y);
+		if (row == null || x < 0 || x >= row.length || row[x] != TYPED)
+			return 0;
+		return this.numberPages[y >>> PAGE_SHIFT][y & PAGE_MASK][x];
+	}
+
+	/**
+	 * Setzt den Inhalt einer Zelle. Ein Inhalt von null löscht die Zelle.
+	 *
+	 * @param x     Die Spalte
+	 * @param y     Die Zeile
+	 * @param value Der neue Inhalt
+	 */
+	void put(int x, int y, String value) {
+		if (value == null) {
+			this.remove(x, y);
+			return;
+		}
+		String[] row = this.row(x, y);
+		row[x] = this.dictionaries == null ? value : this.dictionary(x).intern(value);
+	}
+
+	/**
+	 * Schaltet die Wörterbücher für alle Spalten ein. Texte, die ab jetzt
+	 * gesetzt werden, teilen sich pro Spalte eine Instanz, solange die Spalte
+	 * nicht mehr als limit verschiedene Texte enthält.
+	 *
+	 * @param limit Die maximale Anzahl verschiedener Texte pro Spalte
+	 */
+	void enableDictionaries(int limit) {
+		if (this.dictionaries != null)
+			return;
+		this.dictionaries = new StringDictionary[0];
+		this.dictionaryLimit = limit;
+	}
+
+	/**
+	 * @return Ob die Wörterbücher eingeschaltet sind
+	 */
+	boolean isDictionaryEnabled() {
+		return this.dictionaries != null;
+	}
+
+	/**
+	 * Übernimmt ein fertiges Wörterbuch für eine Spalte. Die Wörterbücher
+	 * müssen dafür eingeschaltet sein.
+	 *
+	 * @param x          Die Spalte
+	 * @param dictionary Das Wörterbuch der Spalte
+	 */
+	void setDictionary(int x, StringDictionary dictionary) {
+		this.dictionary(x);
+		this.dictionaries[x] = dictionary;
+	}
+
+	/**
+	 * @param x Die Spalte
+	 * @return Das aktive Wörterbuch der Spalte oder null
+	 */
+	StringDictionary getDictionary(int x) {
+		if (this.dictionaries == null || x < 0 || x >= this.dictionaries.length)
+			return null;
+		StringDictionary dictionary = this.dictionaries[x];
+		return dictionary != null && dictionary.isActive() ? dictionary : null;
+	}
+
+	/**
+	 * @return Ob die Wörterbücher eingeschaltet sind und noch jede Spalte mit
+	 *         Texten ein aktives Wörterbuch hat
+	 */
+	boolean isFullyPooled() {
+		if (this.dictionaries == null)
+			return false;
+		for (StringDictionary dictionary : this.dictionaries)
+			if (dictionary != null && !dictionary.isActive())
+				return false;
+		return true;
+	}
+
+	private StringDictionary dictionary(int x) {
+		if (x >= this.dictionaries.length)
+			this.dictionaries = Arrays.copyOf(this.dictionaries, Math.max(x + 1, this.dictionaries.length << 1));
+		if (this.dictionaries[x] == null)
+			this.dictionaries[x] = new StringDictionary(this.dictionaryLimit);
+		return this.dictionaries[x];
+	}
+
+	/**
+	 * Setzt eine Zelle auf einen typisierten Wert.
+	 *
+	 * @param x     Die Spalte
+	 * @param y     Die Zeile
+	 * @param type  Die Art des Wertes, nicht {@link ValueType#STRING}
+	 * @param value Der Wert. Wahrheitswerte als 1 oder 0, Datumsangaben als
+	 *              Excel Datumswert.
+	 */
+	void putTyped(int x, int y, ValueType type, double value) {
+		String[] row = this.row(x, y);
+		row[x] = TYPED;
+
+		int page = y >>> PAGE_SHIFT, index = y & PAGE_MASK;
+		if (page >= this.numberPages.length) {
+			this.numberPages = Arrays.copyOf(this.numberPages, this.pages.length);
+			this.typePages = Arrays.copyOf(this.typePages, this.pages.length);
+		}
+		if (this.numberPages[page] == null) {
+			this.numberPages[page] = new double[PAGE_SIZE][];
+			this.typePages[page] = new byte[PAGE_SIZE][];
+		}
+
+		double[] numbers = this.numberPages[page][index];
+		if (numbers == null || numbers.length < row.length) {
+			numbers = this.numberPages[page][index] = numbers == null ? new double[row.length]
+					: Arrays.copyOf(numbers, row.length);
+			byte[] types = this.typePages[page][index];
+			this.typePages[page][index] = types == null ? new byte[row.length] : Arrays.copyOf(types, row.length);
+		}
+
+		numbers[x] = value;
+		this.typePages[page][index][x] = (byte) type.ordinal();
+	}
+
+	/**
+	 * Gibt das Zeilen-Array für eine neue Zelle zurück, vergrößert es falls
+	 * nötig und zählt die Zelle mit.
+	 */
+	private String[] row(int x, int y) {
+		if (x < 0 || y < 0)
+			throw new IndexOutOfBoundsException("Negative cell position [" + x + "|" + y + "]");
+
+		String[][] page = this.page(y >>> PAGE_SHIFT);
+		int index = y & PAGE_MASK;
+		String[] row = page[index];
+
+		if (row == null)
+			row = page[index] = new String[Math.max(x + 1, MIN_ROW_CAPACITY)];
+		else if (x >= row.length)
+			row = page[index] = Arrays.copyOf(row, Math.max(x + 1, row.length << 1));
+
+		if (row[x] == null)
+			this.size++;
+
+		if (x > this.maxX)
+			this.maxX = x;
+		if (y > this.maxY)
+			this.maxY = y;
+
+		return row;
+	}
+
+	/**
+	 * Löscht den Inhalt einer Zelle.
+	 *
+	 * @param x Die Spalte
+	 * @param y Die Zeile
+	 */
+	void remove(int x, int y) {
+		String[] row = this.getRow(y);
+		if (row == null || x < 0 || x >= row.length || row[x] == null)
+			return;
+		row[x] = null;
+		this.size--;
+
+		if (x == this.maxX || y == this.maxY)
+			this.boundsValid = false;
+	}
+
+	/**
+	 * @return Die Anzahl gesetzter Zellen
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return Die größte belegte Spalte oder -1, wenn keine Zelle gesetzt ist
+	 */
+	int getMaxX() {
+		this.ensureBounds();
+		return this.maxX;
+	}
+
+	/**
+	 * @return Die größte belegte Zeile oder -1, wenn keine Zelle gesetzt ist
+	 */
+	int getMaxY() {
+		this.ensureBounds();
+		return this.maxY;
+	}
+
+	/**
+	 * Schätzt den Speicherbedarf der Zellen. Texte aus einem Wörterbuch werden
+	 * nur einmal gezählt.
+	 *
+	 * @return Der ungefähre Speicherbedarf in Bytes
+	 */
+	long estimateBytes() {
+		long bytes = 16L * (this.pages.length + this.numberPages.length + this.typePages.length);
+		for (int p = 0; p < this.pages.length; p++) {
+			if (this.pages[p] == null)
+				continue;
+			bytes += 16 + 4L * PAGE_SIZE;
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				String[] row = this.pages[p][i];
+				if (row == null)
+					continue;
+				bytes += 16 + 4L * row.length;
+				for (int x = 0; x < row.length; x++)
+					if (row[x] != null && row[x] != TYPED && this.getDictionary(x) == null)
+						bytes += stringBytes(row[x]);
+			}
+		}
+		for (int p = 0; p < this.numberPages.length; p++) {
+			if (this.numberPages[p] == null)
+				continue;
+			bytes += 2 * (16 + 4L * PAGE_SIZE);
+			for (int i = 0; i < PAGE_SIZE; i++)
+				if (this.numberPages[p][i] != null)
+					bytes += 32 + 9L * this.numberPages[p][i].length;
+		}
+		if (this.dictionaries != null)
+			for (int x = 0; x < this.dictionaries.length; x++)
+				if (this.getDictionary(x) != null)
+					for (String value : this.dictionaries[x].getValues())
+						bytes += 48 + stringBytes(value);
+		return bytes;
+	}
+
+	private static long stringBytes(String value) {
+		return 40 + value.length();
+	}
+
+	/**
+	 * Die Grenzen werden beim Setzen mitgeführt. Nur wenn eine Zelle am Rand
+	 * gelöscht wurde, müssen sie einmal neu bestimmt werden.
+	 */
+	private void ensureBounds() {
+		if (this.boundsValid)
+			return;
+		this.maxX = -1;
+		this.maxY = -1;
+		for (int p = 0; p < this.pages.length; p++) {
+			if (this.pages[p] == null)
+				continue;
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				String[] row = this.pages[p][i];
+				if (row == null)
+					continue;
+				for (int x = row.length - 1; x >= 0; x--) {
+					if (row[x] != null) {
+						this.maxX = Math.max(this.maxX, x);
+						this.maxY = (p << PAGE_SHIFT) | i;
+						break;
+					}
+				}
+			}
+		}
+		this.boundsValid = true;
+	}
+
+	/**
+	 * Durchläuft alle gesetzten Zellen zeilenweise und innerhalb einer Zeile
+	 * nach Spalten sortiert. Typisierte Zellen werden als Text übergeben.
+	 *
+	 * @param consumer Wird für jede gesetzte Zelle aufgerufen
+	 */
+	void forEach(CellConsumer consumer) {
+		for (int p = 0; p < this.pages.length; p++) {
+			String[][] page = this.pages[p];
+			if (page == null)
+				continue;
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				String[] row = page[i];
+				if (row == null)
+					continue;
+				int y = (p << PAGE_SHIFT) | i;
+				for (int x = 0; x < row.length; x++)
+					if (row[x] != null)
+						consumer.accept(x, y, row[x] == TYPED ? this.get(x, y) : row[x]);
+			}
+		}
+	}
+
+	/**
+	 * Wandelt einen typisierten Wert in seine Textform um. Zahlen und
+	 * Wahrheitswerte entsprechen dabei der bisherigen Textform der Importer.
+	 */
+	static String format(ValueType type, double value) {
+		switch (type) {
+		case NUMERIC:
+			return "" + value;
+		case BOOLEAN:
+			return "" + (value != 0);
+		case DATE:
+			return DateUtil.getLocalDateTime(value).toString();
+		default:
+			return "";
+		}
+	}
+
+	private String[][] page(int page) {
+		if (page >= this.pages.length)
+			this.pages = Arrays.copyOf(this.pages, Math.max(page + 1, this.pages.length << 1));
+		if (this.pages[page] == null)
+			this.pages[page] = new String[PAGE_SIZE][];
+		return this.pages[page];
+	}
+
+	/**
+	 * Empfängt die Zellen aus {@link CellStore#forEach(CellConsumer)}.
+	 */
+	@FunctionalInterface
+	interface CellConsumer {
+		void accept(int x, int y, String value);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * ExcelAndCSVToArray
+ * ColumnWidths.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.Arrays;
+
+/**
+ * Schätzt die Spaltenbreiten eines Sheets aus der Länge der geschriebenen
+ * Texte. Im Gegensatz zu {@link Sheet#autoSizeColumn(int)} wird dabei nichts
+ * gerendert. Die Länge wird mit der Schriftgröße und -stärke der Formatierung
+ * gewichtet, bei großen Tabellen wird nur eine Stichprobe der Zeilen gemessen.
+ *
+ * @author Juhu1705
+ * @category Export
+ */
+final class ColumnWidths {
+
+	/**
+	 * Die Anzahl an Zeilen, die höchstens gemessen werden
+	 */
+	static final int SAMPLE_ROWS = 1 << 16;
+
+	private static final int MAX_WIDTH = 255 * 256;
+	private static final float DEFAULT_FONT_POINTS = 11f;
+	private static final float BOLD_FACTOR = 1.1f;
+	private static final int PADDING = 2;
+
+	private final Workbook workbook;
+	private float[] widths;
+
+	private CellStyle lastStyle;
+	private float lastScale;
+
+	ColumnWidths(Workbook workbook, int columns) {
+		this.workbook = workbook;
+		this.widths = new float[Math.max(columns, 0)];
+	}
+
+	/**
+	 * @param rows Die Anzahl der Zeilen
+	 * @return Der Abstand der gemessenen Zeilen, sodass höchstens
+	 *         {@link #SAMPLE_ROWS} Zeilen gemessen werden
+	 */
+	static int stride(int rows) {
+		return Math.max(1, (rows + SAMPLE_ROWS - 1) / SAMPLE_ROWS);
+	}
+
+	/**
+	 * Berücksichtigt einen Zellinhalt für die Breite seiner Spalte.
+	 *
+	 * @param x      Die Spalte
+	 * @param length Die Anzahl an Zeichen der längsten Zeile des Inhalts
+	 * @param style  Die Formatierung der Zelle
+	 */
+	void measure(int x, int length, CellStyle style) {
+		if (length == 0)
+			return;
+		if (x >= this.widths.length)
+			this.widths = Arrays.copyOf(this.widths, x + 1);
+		float width = length * this.scale(style);
+		if (width > this.widths[x])
+			this.widths[x] = width;
+	}
+
+	/**
+	 * @param value Der Text einer Zelle
+	 * @return Die Länge der längsten Zeile des Textes
+	 */
+	static int length(String value) {
+		if (value.indexOf('\n') < 0)
+			return value.length();
+		int longest = 0, start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == '\n') {
+				longest = Math.max(longest, i - start);
+				start = i + 1;
+			}
+		}
+		return Math.max(longest, value.length() - start);
+	}
+
+	/**
+	 * Setzt die geschätzten Breiten aller gemessenen Spalten.
+	 *
+	 * @param sheet Der Sheet, dessen Spalten angepasst werden
+	 */
+	void apply(Sheet sheet) {
+		for (int x = 0; x < this.widths.length; x++)
+			if (this.widths[x] > 0)
+				sheet.setColumnWidth(x, Math.min(MAX_WIDTH, Math.round((this.widths[x] + PADDING) * 256)));
+	}
+
+	private float scale(CellStyle style) {
+		if (style == this.lastStyle)
+			return this.lastScale;
+
+		float scale = 1f;
+		if (style != null) {
+			Font font = this.workbook.getFontAt(style.getFontIndex());
+			scale = font.getFontHeightInPoints() / DEFAULT_FONT_POINTS;
+			if (font.getBold())
+				scale *= BOLD_FACTOR;
+		}
+
+		this.lastStyle = style;
+		this.lastScale = scale;
+		return scale;
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * ExcelAndCSVToArray
+ * ContentCollector.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sammelt die Zeilen eines gestreamten Imports in je einem
+ * {@link WriteableContent} pro Tabelle.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+class ContentCollector implements TypedRowListener {
+
+	private final List<WriteableContent> contents = new ArrayList<>();
+	private WriteableContent current;
+
+	@Override
+	public void startSheet(int index, String name) {
+		this.current = new WriteableContent(name).enableDictionaryEncoding();
+		this.contents.add(this.current);
+	}
+
+	@Override
+	public void row(int y, String[] cells) {
+		if (this.current == null)
+			this.startSheet(0, "");
+		this.current.addLine(new Vec2i(0, y), cells);
+	}
+
+	@Override
+	public void row(int y, String[] cells, ValueType[] types, double[] values) {
+		if (this.current == null)
+			this.startSheet(0, "");
+		this.current.addLine(y, cells, types, values);
+	}
+
+	/**
+	 * @return Alle gelesenen Tabellen in der Reihenfolge der Datei
+	 */
+	List<WriteableContent> getContents() {
+		return this.contents;
+	}
+
+	/**
+	 * @return Die erste gelesene Tabelle oder eine leere Tabelle
+	 */
+	WriteableContent getFirst() {
+		return this.contents.isEmpty() ? new WriteableContent() : this.contents.get(0);
+	}
+
+}
@@ -0,0 +1,373 @@
+/*
+ * ExcelAndCSVToArray
+ * ContentSnapshot.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Speichert einen {@link WriteableContent} in einem kompakten Binärformat und
+ * liest ihn wieder ein. Ein Snapshot lässt sich deutlich schneller öffnen als
+ * die ursprüngliche .xlsx oder .csv Datei und kann so beim Start statt dieser
+ * geladen werden.
+ * <p>
+ * Aufbau, alle Zahlen big-endian:
+ *
+ * <pre>
+ * int    MAGIC
+ * short  VERSION
+ * string Name
+ * int    startTable
+ * int    Anzahl Spalten
+ * je Spalte:
+ *   int    Länge des Spaltenblocks in Bytes
+ *   int    Anzahl Zellen
+ *   byte   Flags: 1 Wörterbuch, 2 lückenlose Zeilen, 4 nur ein Typ
+ *   [int Anzahl Texte, string... Texte]   nur mit Wörterbuch
+ *   int    erste Zeile bei lückenlosen Zeilen, sonst
+ *   int[]  Zeilen der Zellen, aufsteigend
+ *   byte   {@link ValueType} aller Zellen bei nur einem Typ, sonst
+ *   byte[] {@link ValueType} der Zellen
+ *   je Zelle: STRING als string, mit Wörterbuch als int Index oder -1 und
+ *             string, BLANK ohne Wert, sonst double
+ * string = int Länge + UTF-8 Bytes
+ * </pre>
+ *
+ * Gelesen wird über eine in den Speicher gemappte Datei.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public class ContentSnapshot {
+
+	/**
+	 * "WCSN"
+	 */
+	public static final int MAGIC = 0x5743534E;
+	public static final short VERSION = 1;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final int DICTIONARY = 1, DENSE_ROWS = 2, SINGLE_TYPE = 4;
+
+	protected ContentSnapshot() {
+	}
+
+	/**
+	 * Schreibt den Inhalt als Snapshot in eine Datei. Eine vorhandene Datei
+	 * wird überschrieben.
+	 *
+	 * @param file    Die Zieldatei
+	 * @param content Der zu speichernde Inhalt
+	 */
+	public static void write(Path file, WriteableContent content) throws IOException {
+		File parent = file.toAbsolutePath().getParent().toFile();
+		parent.mkdirs();
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+			write(out, content);
+		}
+	}
+
+	/**
+	 * Schreibt den Inhalt als Snapshot in einen Stream.
+	 *
+	 * @param stream  Der Stream, er wird nicht geschlossen
+	 * @param content Der zu speichernde Inhalt
+	 */
+	public static void write(OutputStream stream, WriteableContent content) throws IOException {
+		DataOutputStream out = stream instanceof DataOutputStream ? (DataOutputStream) stream
+				: new DataOutputStream(stream);
+		CellStore cells = content.cells();
+
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		writeString(out, content.getName());
+		out.writeInt(content.getStartTable());
+
+		int columns = cells.getMaxX() + 1;
+		int maxY = cells.getMaxY();
+		out.writeInt(columns);
+
+		ByteArrayOutputStream block = new ByteArrayOutputStream(BUFFER_SIZE);
+		DataOutputStream column = new DataOutputStream(block);
+		for (int x = 0; x < columns; x++) {
+			block.reset();
+			writeColumn(column, cells, x, maxY);
+			column.flush();
+			out.writeInt(block.size());
+			block.writeTo(out);
+		}
+		out.flush();
+	}
+
+	private static void writeColumn(DataOutputStream out, CellStore cells, int x, int maxY) throws IOException {
+		int count = 0, first = -1, last = -1;
+		ValueType single = null;
+		boolean mixed = false;
+		for (int y = 0; y <= maxY; y++) {
+			ValueType type = cells.getType(x, y);
+			if (type == null)
+				continue;
+			if (first < 0)
+				first = y;
+			last = y;
+			count++;
+			if (single == null)
+				single = type;
+			else if (single != type)
+				mixed = true;
+		}
+
+		StringDictionary dictionary = cells.getDictionary(x);
+		boolean dense = count > 0 && last - first + 1 == count;
+
+		int flags = 0;
+		if (dictionary != null)
+			flags |= DICTIONARY;
+		if (dense)
+			flags |= DENSE_ROWS;
+		if (count > 0 && !mixed)
+			flags |= SINGLE_TYPE;
+
+		out.writeInt(count);
+		out.writeByte(flags);
+
+		Map<String, Integer> codes = null;
+		if (dictionary != null) {
+			List<String> values = dictionary.getValues();
+			codes = new HashMap<>(values.size() * 2);
+			out.writeInt(values.size());
+			for (String value : values) {
+				codes.put(value, codes.size());
+				writeString(out, value);
+			}
+		}
+
+		if (dense) {
+			out.writeInt(first);
+		} else {
+			for (int y = 0; y <= maxY; y++)
+				if (cells.getType(x, y) != null)
+					out.writeInt(y);
+		}
+
+		if (count > 0 && !mixed) {
+			out.writeByte(single.ordinal());
+		} else {
+			for (int y = 0; y <= maxY; y++) {
+				ValueType type = cells.getType(x, y);
+				if (type != null)
+					out.writeByte(type.ordinal());
+			}
+		}
+
+		for (int y = first; y <= last && y >= 0; y++) {
+			ValueType type = cells.getType(x, y);
+			if (type == null || type == ValueType.BLANK)
+				continue;
+			if (type != ValueType.STRING) {
+				out.writeDouble(cells.getNumber(x, y));
+				continue;
+			}
+
+			String value = cells.get(x, y);
+			Integer code = codes == null ? null : codes.get(value);
+			if (codes == null) {
+				writeString(out, value);
+			} else if (code != null) {
+				out.writeInt(code);
+			} else {
+				// Vor dem Einschalten des Wörterbuchs gesetzt
+				out.writeInt(-1);
+				writeString(out, value);
+			}
+		}
+	}
+
+	/**
+	 * Liest einen Snapshot über eine in den Speicher gemappte Datei ein.
+	 *
+	 * @param file Die Datei des Snapshots
+	 * @return Der gespeicherte Inhalt
+	 * @throws IOException Wenn die Datei kein gültiger Snapshot ist
+	 */
+	public static WriteableContent read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshot too large to map: " + file);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer);
+		}
+	}
+
+	/**
+	 * Liest einen Snapshot aus einem Puffer, beginnend an dessen Position.
+	 *
+	 * @param buffer Der Puffer mit dem Snapshot
+	 * @return Der gespeicherte Inhalt
+	 * @throws IOException Wenn der Puffer keinen gültigen Snapshot enthält
+	 */
+	public static WriteableContent read(ByteBuffer buffer) throws IOException {
+		try {
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Not a content snapshot");
+			short version = buffer.getShort();
+			if (version != VERSION)
+				throw new IOException("Unsupported snapshot version " + version);
+
+			byte[] scratch = grow(new byte[256], buffer);
+			WriteableContent content = new WriteableContent(readString(buffer, scratch));
+			content.setStartTable(buffer.getInt());
+
+			CellStore cells = content.cells();
+			int columns = buffer.getInt();
+			for (int x = 0; x < columns; x++) {
+				int length = buffer.getInt();
+				int end = buffer.position() + length;
+				scratch = readColumn(buffer, cells, x, scratch);
+				if (buffer.position() != end)
+					throw new IOException("Corrupt snapshot column " + x);
+			}
+			return content;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+				| NegativeArraySizeException e) {
+			throw new IOException("Corrupt snapshot", e);
+		}
+	}
+
+	private static byte[] readColumn(ByteBuffer buffer, CellStore cells, int x, byte[] scratch) throws IOException {
+		int count = buffer.getInt();
+		int flags = buffer.get();
+
+		String[] dictionary = null;
+		if ((flags & DICTIONARY) != 0) {
+			cells.enableDictionaries(WriteableContent.DEFAULT_DICTIONARY_LIMIT);
+			StringDictionary pool = new StringDictionary(WriteableContent.DEFAULT_DICTIONARY_LIMIT);
+			dictionary = new String[checkLength(buffer.getInt(), Integer.BYTES, buffer)];
+			for (int i = 0; i < dictionary.length; i++) {
+				scratch = grow(scratch, buffer);
+				dictionary[i] = pool.intern(readString(buffer, scratch));
+			}
+			cells.setDictionary(x, pool);
+		} else if (cells.isDictionaryEnabled()) {
+			// Die Spalte hatte kein Wörterbuch, ein leeres Limit verwirft es sofort
+			cells.setDictionary(x, new StringDictionary(0));
+		}
+
+		int rows = -1, first = 0;
+		if ((flags & DENSE_ROWS) != 0) {
+			first = buffer.getInt();
+		} else {
+			rows = buffer.position();
+			buffer.position(rows + checkLength(count, Integer.BYTES, buffer) * Integer.BYTES);
+		}
+
+		int types = -1;
+		ValueType single = null;
+		if ((flags & SINGLE_TYPE) != 0) {
+			single = ValueType.of(buffer.get());
+		} else {
+			types = buffer.position();
+			buffer.position(types + checkLength(count, 1, buffer));
+		}
+
+		for (int i = 0; i < count; i++) {
+			int y = rows < 0 ? first + i : buffer.getInt(rows + i * Integer.BYTES);
+			ValueType type = single != null ? single : ValueType.of(buffer.get(types + i));
+			switch (type) {
+			case STRING:
+				int code = dictionary == null ? -1 : buffer.getInt();
+				if (code >= 0) {
+					cells.put(x, y, dictionary[code]);
+				} else {
+					scratch = grow(scratch, buffer);
+					cells.put(x, y, readString(buffer, scratch));
+				}
+				break;
+			case BLANK:
+				cells.putTyped(x, y, type, 0);
+				break;
+			default:
+				cells.putTyped(x, y, type, buffer.getDouble());
+			}
+		}
+		return scratch;
+	}
+
+	/**
+	 * Vergrößert den Puffer für den als nächstes folgenden Text, falls nötig.
+	 *
+	 * @throws IOException Wenn die Länge nicht mehr in den Puffer passt
+	 */
+	private static byte[] grow(byte[] scratch, ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt(buffer.position());
+		if (length < 0 || length > buffer.remaining() - Integer.BYTES)
+			throw new IOException("Corrupt snapshot string");
+		return length > scratch.length ? new byte[Math.max(length, scratch.length << 1)] : scratch;
+	}
+
+	/**
+	 * Prüft eine gelesene Anzahl, bevor dafür Speicher angelegt wird.
+	 *
+	 * @param count Die gelesene Anzahl
+	 * @param bytes Die Bytes, die jeder Eintrag mindestens belegt
+	 * @return Die Anzahl
+	 * @throws IOException Wenn die Anzahl negativ ist oder die Einträge nicht
+	 *                     mehr in den Puffer passen
+	 */
+	private static int checkLength(int count, int bytes, ByteBuffer buffer) throws IOException {
+		if (count < 0 || count > buffer.remaining() / bytes)
+			throw new IOException("Corrupt snapshot length " + count);
+		return count;
+	}
+
+	private static String readString(ByteBuffer buffer, byte[] scratch) throws IOException {
+		int length = buffer.getInt();
+		if (length < 0 || length > scratch.length)
+			throw new IOException("Corrupt snapshot string");
+		buffer.get(scratch, 0, length);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+}
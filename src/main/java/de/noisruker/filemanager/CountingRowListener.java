@@ -0,0 +1,85 @@
+/*
+ * ExcelAndCSVToArray
+ * CountingRowListener.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+/**
+ * Zählt die Zeilen und gesetzten Zellen, die an einen anderen
+ * {@link RowListener} weitergegeben werden. Wird für die Messwerte der
+ * gestreamten Importe genutzt.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class CountingRowListener implements TypedRowListener {
+
+	private final RowListener listener;
+	private long rows, cells;
+
+	CountingRowListener(RowListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public void startSheet(int index, String name) {
+		this.listener.startSheet(index, name);
+	}
+
+	@Override
+	public void row(int y, String[] cells) {
+		this.count(cells);
+		this.listener.row(y, cells);
+	}
+
+	@Override
+	public void row(int y, String[] cells, ValueType[] types, double[] values) {
+		this.count(cells);
+		TypedRowListener.forward(this.listener, y, cells, types, values);
+	}
+
+	private void count(String[] cells) {
+		this.rows++;
+		for (String cell : cells)
+			if (cell != null)
+				this.cells++;
+	}
+
+	@Override
+	public void endSheet(int index, String name) {
+		this.listener.endSheet(index, name);
+	}
+
+	long getRows() {
+		return this.rows;
+	}
+
+	long getCells() {
+		return this.cells;
+	}
+
+	/**
+	 * Setzt die Zähler zurück, z.B. für den nächsten Sheet.
+	 */
+	void reset() {
+		this.rows = 0;
+		this.cells = 0;
+	}
+
+}
@@ -19,15 +19,25 @@
 
 package de.noisruker.filemanager;
 
+import de.noisruker.filemanager.metrics.Phase;
+import de.noisruker.filemanager.utils.CellStyles;
+import de.noisruker.filemanager.utils.Config;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
 
 import static de.noisruker.logger.Logger.LOGGER;
@@ -52,13 +62,7 @@ public class ExcelExporter {
 		File file = new File(pathfile + ".xls");
 		file.getParentFile().mkdirs();
 
-		try {
-			FileOutputStream outFile = new FileOutputStream(file);
-			workbook.write(outFile);
-			outFile.close();
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Exportieren einer .xls Datei", e);
-		}
+		write(workbook, file, "writeXLS");
 
 		try {
 			workbook.close();
@@ -79,13 +83,7 @@ public class ExcelExporter {
 		File file = new File(pathfile + ".xlsx");
 		file.getParentFile().mkdirs();
 
-		try {
-			FileOutputStream outFile = new FileOutputStream(file);
-			workbook.write(outFile);
-			outFile.close();
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Exportieren einer .xlsx Datei", e);
-		}
+		write(workbook, file, "writeXLSX");
 
 		try {
 			workbook.close();
@@ -107,13 +105,7 @@ public class ExcelExporter {
 		File file = new File(pathfile + ".xls");
 		file.getParentFile().mkdirs();
 
-		try {
-			FileOutputStream outFile = new FileOutputStream(file);
-			workbook.write(outFile);
-			outFile.close();
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Exportieren einer .xls Datei", e);
-		}
+		write(workbook, file, "writeXLS");
 
 		try {
 			workbook.close();
@@ -136,15 +128,11 @@ public class ExcelExporter {
 		file.getParentFile().mkdirs();
 
 		try {
-			FileOutputStream outFile = new FileOutputStream(file);
-			workbook.write(outFile);
-			outFile.close();
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Exportieren einer .xls Datei", e);
+			writeFile(workbook, file, "writeXLS");
+		} finally {
+			workbook.close();
 		}
 
-		workbook.close();
-
 	}
 
 	public static void writeXLSX(String pathfile, WriteableContent... toWrite) throws IOException {
@@ -161,15 +149,11 @@ public class ExcelExporter {
 		file.getParentFile().mkdirs();
 
 		try {
-			FileOutputStream outFile = new FileOutputStream(file);
-			workbook.write(outFile);
-			outFile.close();
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Exportieren einer .xlsx Datei", e);
+			writeFile(workbook, file, "writeXLSX");
+		} finally {
+			workbook.close();
 		}
 
-		workbook.close();
-
 	}
 
 	public static void writeXLSX(String pathfile, List<WriteableContent> toWrite) throws IOException {
@@ -189,14 +173,144 @@ public class ExcelExporter {
 		// file.getParentFile().mkdirs();
 
 		try {
-			FileOutputStream outFile = new FileOutputStream(file);
-			workbook.write(outFile);
-			outFile.close();
-		} catch (IOException e) {
-			LOGGER.log(Level.SEVERE, "Fehler beim Exportieren einer .xlsx Datei", e);
+			writeFile(workbook, file, "writeXLSX");
+		} finally {
+			workbook.close();
 		}
 
-		workbook.close();
+	}
 
+	/**
+	 * Exportiert die Inhalte gestreamt in eine .xlsx Datei. Es werden nur die
+	 * letzten {@link SXSSFWorkbook#DEFAULT_WINDOW_SIZE} Zeilen im Speicher
+	 * gehalten, ältere Zeilen werden komprimiert in temporäre Dateien
+	 * ausgelagert.
+	 *
+	 * @param pathfile Der Pfad der Datei ohne Endung
+	 * @param toWrite  Die zu exportierenden Tabellen
+	 */
+	public static void writeXLSXStreamed(String pathfile, WriteableContent... toWrite) throws IOException {
+		writeXLSXStreamed(pathfile, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, true, Arrays.asList(toWrite));
+	}
+
+	/**
+	 * Exportiert die Inhalte gestreamt in eine .xlsx Datei. Der Speicherbedarf
+	 * hängt nur von der Größe des Zeilenfensters ab, nicht von der Anzahl der
+	 * Zeilen.
+	 *
+	 * @param pathfile          Der Pfad der Datei ohne Endung
+	 * @param rowAccessWindow   Die Anzahl an Zeilen, die im Speicher gehalten
+	 *                          werden
+	 * @param compressTempFiles Ob die ausgelagerten Zeilen komprimiert werden
+	 *                          sollen
+	 * @param toWrite           Die zu exportierenden Tabellen
+	 */
+	public static void writeXLSXStreamed(String pathfile, int rowAccessWindow, boolean compressTempFiles,
+			List<WriteableContent> toWrite) throws IOException {
+		writeStreamed(pathfile, rowAccessWindow, compressTempFiles, toWrite, null);
+	}
+
+	/**
+	 * Exportiert die Inhalte gestreamt in eine .xlsx Datei und befüllt die
+	 * Tabellen dabei parallel auf dem gemeinsamen {@link ForkJoinPool}.
+	 *
+	 * @param pathfile Der Pfad der Datei ohne Endung
+	 * @param toWrite  Die zu exportierenden Tabellen
+	 */
+	public static void writeXLSXParallel(String pathfile, WriteableContent... toWrite) throws IOException {
+		writeXLSXParallel(pathfile, Arrays.asList(toWrite), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Exportiert die Inhalte gestreamt in eine .xlsx Datei. Jede Tabelle wird
+	 * von einem eigenen Task auf dem Pool in ihre eigene temporäre Datei
+	 * geschrieben. Danach werden die Tabellen in der gegebenen Reihenfolge zu
+	 * einer Datei zusammengesetzt.
+	 *
+	 * @param pathfile Der Pfad der Datei ohne Endung
+	 * @param toWrite  Die zu exportierenden Tabellen
+	 * @param pool     Der Pool, auf dem die Tabellen befüllt werden
+	 */
+	public static void writeXLSXParallel(String pathfile, List<WriteableContent> toWrite, ForkJoinPool pool)
+			throws IOException {
+		writeStreamed(pathfile, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, true, toWrite, pool);
+	}
+
+	/**
+	 * @param pool Der Pool, auf dem die Tabellen befüllt werden, oder null, um
+	 *             sie nacheinander zu befüllen
+	 */
+	private static void writeStreamed(String pathfile, int rowAccessWindow, boolean compressTempFiles,
+			List<WriteableContent> toWrite, ForkJoinPool pool) throws IOException {
+		// Stammen alle Texte aus Wörterbüchern, ist die gemeinsame Texttabelle klein
+		// und in den Zeilen steht nur noch der Index. Mit einzelnen Spalten voller
+		// verschiedener Texte würde die Tabelle dagegen größer als die Zeilen selbst.
+		// Sie ist nicht threadsicher und wird deshalb nur sequentiell genutzt.
+		boolean sharedStrings = pool == null && !toWrite.isEmpty()
+				&& toWrite.stream().allMatch(WriteableContent::isFullyDictionaryEncoded);
+		SXSSFWorkbook workbook = new SXSSFWorkbook(null, rowAccessWindow, compressTempFiles, sharedStrings);
+
+		int rownumber = 0;
+
+		try {
+			// Das Workbook selbst ist nicht threadsicher. Sheets und Formatierungen
+			// werden deshalb vorab erstellt, die Tasks befüllen nur ihren eigenen Sheet.
+			SXSSFSheet[] sheets = new SXSSFSheet[toWrite.size()];
+			for (int i = 0; i < sheets.length; i++) {
+				sheets[i] = workbook.createSheet(toWrite.get(i).getName());
+				if (Config.exactColumnWidths)
+					sheets[i].trackAllColumnsForAutoSizing();
+			}
+
+			if (pool == null) {
+				for (int i = 0; i < sheets.length; i++)
+					toWrite.get(i).writeXLSX(workbook, sheets[i], rownumber);
+			} else {
+				for (CellStyles.Kind kind : CellStyles.Kind.values())
+					CellStyles.get(workbook, kind);
+
+				List<ForkJoinTask<?>> tasks = new ArrayList<>(sheets.length);
+				for (int i = 0; i < sheets.length; i++) {
+					WriteableContent writeable = toWrite.get(i);
+					SXSSFSheet sheet = sheets[i];
+					tasks.add(pool.submit(() -> writeable.writeXLSX(workbook, sheet, rownumber)));
+				}
+				for (ForkJoinTask<?> task : tasks)
+					task.join();
+			}
+
+			File file = new File(pathfile + ".xlsx");
+			if (file.getParentFile() != null)
+				file.getParentFile().mkdirs();
+
+			writeFile(workbook, file, pool == null ? "writeXLSXStreamed" : "writeXLSXParallel");
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * Schreibt das Workbook in die Datei. Fehler werden protokolliert.
+	 */
+	private static void write(Workbook workbook, File file, String operation) {
+		try {
+			writeFile(workbook, file, operation);
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE,
+					"Fehler beim Exportieren einer " + (workbook instanceof HSSFWorkbook ? ".xls" : ".xlsx") + " Datei", e);
+		}
+	}
+
+	/**
+	 * Schreibt das Workbook in die Datei und gibt Fehler an den Aufrufer weiter.
+	 */
+	private static void writeFile(Workbook workbook, File file, String operation) throws IOException {
+		PhaseTimer timer = PhaseTimer.start(operation, Phase.FLUSH, null);
+		try (FileOutputStream outFile = new FileOutputStream(file)) {
+			workbook.write(outFile);
+		} finally {
+			timer.bytes(file.length()).end();
+		}
 	}
 }
@@ -19,15 +19,37 @@
 
 package de.noisruker.filemanager;
 
+import de.noisruker.filemanager.metrics.Phase;
 import de.noisruker.logger.Logger;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Date1904Support;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -45,49 +67,45 @@ import java.util.logging.Level;
 public class ExcelImporter {
 
 	public static WriteableContent readXLS(String pathfile) throws IOException, URISyntaxException {
+		return readXLS(pathfile, FormulaMode.EVALUATE);
+	}
+
+	/**
+	 * Liest die erste Tabelle einer .xls Datei ein.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @return Die erste Tabelle der Datei
+	 */
+	public static WriteableContent readXLS(String pathfile, FormulaMode formulaMode)
+			throws IOException, URISyntaxException {
+		return readXLS(pathfile, formulaMode, new ImportOptions());
+	}
 
-		WriteableContent input = new WriteableContent();
+	/**
+	 * Liest die in den Optionen ausgewählten Spalten und Zeilen der ersten
+	 * Tabelle einer .xls Datei ein.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @param options     Die zu übernehmenden Spalten und Zeilen
+	 * @return Der ausgewählte Inhalt der ersten Tabelle
+	 */
+	public static WriteableContent readXLS(String pathfile, FormulaMode formulaMode, ImportOptions options)
+			throws IOException, URISyntaxException {
+
+		WriteableContent input = new WriteableContent().enableDictionaryEncoding();
 
 		InputStream inputStream = getInput(pathfile);
 
-		HSSFWorkbook w;
+		PhaseTimer parse = PhaseTimer.start("readXLS", Phase.PARSE, null);
+		HSSFWorkbook w = new HSSFWorkbook(inputStream);
+		parse.bytes(fileSize(pathfile)).end();
 
-		HSSFSheet sheet = (w = new HSSFWorkbook(inputStream)).getSheetAt(0);
+		HSSFSheet sheet = w.getSheetAt(0);
+
+		readSheet(sheet, input, evaluator(w, formulaMode), formulaMode, options);
 
-		for (Row row : sheet) {
-			for (Cell cell : row) {
-				switch (cell.getCellType()) {
-				case BLANK:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				case BOOLEAN:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							"" + cell.getBooleanCellValue());
-					break;
-				case ERROR:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				case FORMULA:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							"" + w.getCreationHelper().createFormulaEvaluator().evaluate(cell).getNumberValue());
-					break;
-				case NUMERIC:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							"" + cell.getNumericCellValue());
-					break;
-				case STRING:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							cell.getStringCellValue());
-					break;
-				case _NONE:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				default:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				}
-			}
-		}
 		inputStream.close();
 		w.close();
 
@@ -95,49 +113,45 @@ public class ExcelImporter {
 	}
 
 	public static WriteableContent readXLSX(String pathfile) throws IOException, URISyntaxException {
+		return readXLSX(pathfile, FormulaMode.EVALUATE);
+	}
+
+	/**
+	 * Liest die erste Tabelle einer .xlsx Datei ein.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @return Die erste Tabelle der Datei
+	 */
+	public static WriteableContent readXLSX(String pathfile, FormulaMode formulaMode)
+			throws IOException, URISyntaxException {
+		return readXLSX(pathfile, formulaMode, new ImportOptions());
+	}
+
+	/**
+	 * Liest die in den Optionen ausgewählten Spalten und Zeilen der ersten
+	 * Tabelle einer .xlsx Datei ein.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @param options     Die zu übernehmenden Spalten und Zeilen
+	 * @return Der ausgewählte Inhalt der ersten Tabelle
+	 */
+	public static WriteableContent readXLSX(String pathfile, FormulaMode formulaMode, ImportOptions options)
+			throws IOException, URISyntaxException {
 
-		WriteableContent input = new WriteableContent();
+		WriteableContent input = new WriteableContent().enableDictionaryEncoding();
 
 		InputStream inputStream = getInput(pathfile);
 
-		XSSFWorkbook w;
+		PhaseTimer parse = PhaseTimer.start("readXLSX", Phase.PARSE, null);
+		XSSFWorkbook w = new XSSFWorkbook(inputStream);
+		parse.bytes(fileSize(pathfile)).end();
 
-		XSSFSheet sheet = (w = new XSSFWorkbook(inputStream)).getSheetAt(0);
+		XSSFSheet sheet = w.getSheetAt(0);
+
+		readSheet(sheet, input, evaluator(w, formulaMode), formulaMode, options);
 
-		for (Row row : sheet) {
-			for (Cell cell : row) {
-				switch (cell.getCellType()) {
-				case BLANK:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				case BOOLEAN:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							"" + cell.getBooleanCellValue());
-					break;
-				case ERROR:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				case FORMULA:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							"" + w.getCreationHelper().createFormulaEvaluator().evaluate(cell).getNumberValue());
-					break;
-				case NUMERIC:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							"" + cell.getNumericCellValue());
-					break;
-				case STRING:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-							cell.getStringCellValue());
-					break;
-				case _NONE:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				default:
-					input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-					break;
-				}
-			}
-		}
 		inputStream.close();
 		w.close();
 
@@ -145,53 +159,27 @@ public class ExcelImporter {
 	}
 
 	public static List<WriteableContent> readXLSImproved(String pathfile) throws IOException, URISyntaxException {
+		return readXLSImproved(pathfile, FormulaMode.EVALUATE);
+	}
 
-		ArrayList<WriteableContent> dataContent = new ArrayList<>();
+	/**
+	 * Liest alle Tabellen einer .xls Datei ein.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @return Alle Tabellen der Datei
+	 */
+	public static List<WriteableContent> readXLSImproved(String pathfile, FormulaMode formulaMode)
+			throws IOException, URISyntaxException {
 
 		InputStream inputStream = getInput(pathfile);
 
-		HSSFWorkbook w;
-
-		for (Sheet sheetIn : (w = new HSSFWorkbook(inputStream))) {
-
-			WriteableContent input = new WriteableContent(sheetIn.getSheetName());
-
-			for (Row row : sheetIn) {
-				for (Cell cell : row) {
-					switch (cell.getCellType()) {
-					case BLANK:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					case BOOLEAN:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								"" + cell.getBooleanCellValue());
-						break;
-					case ERROR:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					case FORMULA:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								"" + w.getCreationHelper().createFormulaEvaluator().evaluate(cell).getNumberValue());
-						break;
-					case NUMERIC:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								"" + cell.getNumericCellValue());
-						break;
-					case STRING:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								cell.getStringCellValue());
-						break;
-					case _NONE:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					default:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					}
-				}
-			}
-			dataContent.add(input);
-		}
+		PhaseTimer parse = PhaseTimer.start("readXLSImproved", Phase.PARSE, null);
+		HSSFWorkbook w = new HSSFWorkbook(inputStream);
+		parse.bytes(fileSize(pathfile)).end();
+
+		List<WriteableContent> dataContent = readWorkbook(w, formulaMode);
+
 		inputStream.close();
 		w.close();
 
@@ -199,56 +187,584 @@ public class ExcelImporter {
 	}
 
 	public static List<WriteableContent> readXLSXImproved(String pathfile) throws IOException, URISyntaxException {
+		return readXLSXImproved(pathfile, FormulaMode.EVALUATE);
+	}
 
-		ArrayList<WriteableContent> dataContent = new ArrayList<>();
+	/**
+	 * Liest alle Tabellen einer .xlsx Datei ein.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @return Alle Tabellen der Datei
+	 */
+	public static List<WriteableContent> readXLSXImproved(String pathfile, FormulaMode formulaMode)
+			throws IOException, URISyntaxException {
 
 		InputStream inputStream = getInput(pathfile);
 
-		XSSFWorkbook w;
-
-		for (Sheet sheet : (w = new XSSFWorkbook(inputStream))) {
-
-			WriteableContent input = new WriteableContent(sheet.getSheetName());
-			for (Row row : sheet) {
-				for (Cell cell : row) {
-					switch (cell.getCellType()) {
-					case BLANK:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					case BOOLEAN:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								"" + cell.getBooleanCellValue());
-						break;
-					case ERROR:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					case FORMULA:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								"" + w.getCreationHelper().createFormulaEvaluator().evaluate(cell).getNumberValue());
-						break;
-					case NUMERIC:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								"" + cell.getNumericCellValue());
-						break;
-					case STRING:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()),
-								cell.getStringCellValue());
-						break;
-					case _NONE:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
-					default:
-						input.addCell(new Vec2i(cell.getAddress().getColumn(), cell.getRowIndex()), "");
-						break;
+		PhaseTimer parse = PhaseTimer.start("readXLSXImproved", Phase.PARSE, null);
+		XSSFWorkbook w = new XSSFWorkbook(inputStream);
+		parse.bytes(fileSize(pathfile)).end();
+
+		List<WriteableContent> dataContent = readWorkbook(w, formulaMode);
+
+		inputStream.close();
+		w.close();
+
+		return dataContent;
+	}
+
+	private static List<WriteableContent> readWorkbook(Workbook w, FormulaMode formulaMode) {
+		ArrayList<WriteableContent> dataContent = new ArrayList<>();
+
+		FormulaEvaluator evaluator = evaluator(w, formulaMode);
+
+		for (Sheet sheet : w) {
+			WriteableContent input = new WriteableContent(sheet.getSheetName()).enableDictionaryEncoding();
+			readSheet(sheet, input, evaluator, formulaMode);
+			dataContent.add(input);
+		}
+
+		return dataContent;
+	}
+
+	static void readSheet(Sheet sheet, WriteableContent input, FormulaEvaluator evaluator,
+			FormulaMode formulaMode) {
+		PhaseTimer timer = PhaseTimer.start(sheet instanceof HSSFSheet ? "readXLS" : "readXLSX", Phase.MATERIALIZE,
+				sheet.getSheetName());
+		int cells = input.getCellCount();
+
+		for (Row row : sheet) {
+			for (Cell cell : row) {
+				readCell(input, new Vec2i(cell.getColumnIndex(), cell.getRowIndex()), cell, evaluator, formulaMode);
+			}
+		}
+
+		timer.rows(sheet.getPhysicalNumberOfRows()).cells(input.getCellCount() - cells).end();
+	}
+
+	/**
+	 * Liest nur die ausgewählten Spalten und Zeilen einer Tabelle. Von den
+	 * ausgewählten Spalten wird jede Zelle direkt über ihren Index geholt, nach
+	 * dem Zeilenbereich wird abgebrochen.
+	 */
+	static void readSheet(Sheet sheet, WriteableContent input, FormulaEvaluator evaluator, FormulaMode formulaMode,
+			ImportOptions options) {
+		if (options.isAll()) {
+			readSheet(sheet, input, evaluator, formulaMode);
+			return;
+		}
+
+		PhaseTimer timer = PhaseTimer.start(sheet instanceof HSSFSheet ? "readXLS" : "readXLSX", Phase.MATERIALIZE,
+				sheet.getSheetName());
+		int cells = input.getCellCount();
+
+		RowProjection projection = new RowProjection(options, null);
+		for (Row row : sheet) {
+			int y = row.getRowNum();
+			if (projection.isPast(y))
+				break;
+			if (!projection.wantsRow(y) || row.getPhysicalNumberOfCells() == 0)
+				continue;
+			if (y == options.getHeaderRow())
+				projection.resolve(text(row));
+
+			int outY = projection.getRow();
+			int[] columns = projection.getColumns();
+			int width;
+			if (columns == null) {
+				for (Cell cell : row)
+					readCell(input, new Vec2i(cell.getColumnIndex(), outY), cell, evaluator, formulaMode);
+				width = Math.max(0, row.getLastCellNum());
+			} else {
+				for (int x = 0; x < columns.length; x++) {
+					Cell cell = row.getCell(columns[x]);
+					if (cell != null)
+						readCell(input, new Vec2i(x, outY), cell, evaluator, formulaMode);
+				}
+				width = columns.length;
+			}
+
+			// Der Filter sieht die Texte so, wie sie im Inhalt stehen. Abgelehnte
+			// Zeilen werden wieder entfernt und von der nächsten Zeile überschrieben.
+			if (projection.filters(y)) {
+				String[] values = new String[width];
+				for (int x = 0; x < width; x++)
+					values[x] = input.getStringAt(new Vec2i(x, outY));
+				if (!projection.accept(y, values)) {
+					input.removeLine(new Vec2i(0, outY), width);
+					continue;
+				}
+			}
+			projection.nextRow();
+		}
+
+		timer.rows(projection.getRow()).cells(input.getCellCount() - cells).end();
+	}
+
+	/**
+	 * @return Die Zellen der Zeile so, wie sie in Excel angezeigt werden
+	 */
+	private static String[] text(Row row) {
+		DataFormatter formatter = new DataFormatter();
+		String[] cells = new String[Math.max(0, row.getLastCellNum())];
+		for (Cell cell : row)
+			cells[cell.getColumnIndex()] = formatter.formatCellValue(cell);
+		return cells;
+	}
+
+	/**
+	 * Erstellt einen Evaluator für das ganze Workbook, damit berechnete
+	 * Zwischenergebnisse für alle Formeln wiederverwendet werden.
+	 */
+	static FormulaEvaluator evaluator(Workbook w, FormulaMode formulaMode) {
+		return formulaMode == FormulaMode.EVALUATE ? w.getCreationHelper().createFormulaEvaluator() : null;
+	}
+
+	/**
+	 * Übernimmt eine Zelle mit ihrem Typ. Zahlen, Wahrheitswerte und
+	 * Datumsangaben werden nicht in Text umgewandelt.
+	 */
+	static void readCell(WriteableContent input, Vec2i position, Cell cell, FormulaEvaluator evaluator,
+			FormulaMode formulaMode) {
+		switch (cell.getCellType()) {
+		case BOOLEAN:
+			input.addBoolean(position, cell.getBooleanCellValue());
+			break;
+		case NUMERIC:
+			readNumber(input, position, cell);
+			break;
+		case STRING:
+			input.addCell(position, cell.getStringCellValue());
+			break;
+		case FORMULA:
+			readFormula(input, position, cell, evaluator, formulaMode);
+			break;
+		case BLANK:
+			input.addBlank(position);
+			break;
+		default:
+			input.addCell(position, "");
+			break;
+		}
+	}
+
+	private static void readNumber(WriteableContent input, Vec2i position, Cell cell) {
+		if (DateUtil.isCellDateFormatted(cell))
+			input.addDate(position, cell.getLocalDateTimeCellValue());
+		else
+			input.addNumber(position, cell.getNumericCellValue());
+	}
+
+	/**
+	 * @return Ob die Datumsangaben des Workbooks ab 1904 zählen. Das
+	 *         {@link HSSFWorkbook} bietet dafür kein {@link Date1904Support}.
+	 */
+	private static boolean isDate1904(Workbook w) {
+		if (w instanceof HSSFWorkbook)
+			return ((HSSFWorkbook) w).getInternalWorkbook().isUsing1904DateWindowing();
+		return w instanceof Date1904Support && ((Date1904Support) w).isDate1904();
+	}
+
+	private static void readFormula(WriteableContent input, Vec2i position, Cell cell, FormulaEvaluator evaluator,
+			FormulaMode formulaMode) {
+		switch (formulaMode) {
+		case FORMULA:
+			input.addCell(position, cell.getCellFormula());
+			break;
+		case CACHED:
+			switch (cell.getCachedFormulaResultType()) {
+			case BOOLEAN:
+				input.addBoolean(position, cell.getBooleanCellValue());
+				break;
+			case NUMERIC:
+				readNumber(input, position, cell);
+				break;
+			case STRING:
+				input.addCell(position, cell.getStringCellValue());
+				break;
+			default:
+				input.addCell(position, "");
+				break;
+			}
+			break;
+		default:
+			CellValue value = evaluator.evaluate(cell);
+			if (value == null) {
+				input.addCell(position, "");
+				break;
+			}
+			switch (value.getCellType()) {
+			case BOOLEAN:
+				input.addBoolean(position, value.getBooleanValue());
+				break;
+			case NUMERIC:
+				if (DateUtil.isCellDateFormatted(cell))
+					input.addDate(position, DateUtil.getLocalDateTime(value.getNumberValue(),
+							isDate1904(cell.getSheet().getWorkbook())));
+				else
+					input.addNumber(position, value.getNumberValue());
+				break;
+			case STRING:
+				input.addCell(position, value.getStringValue());
+				break;
+			default:
+				input.addCell(position, "");
+				break;
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Liest die erste Tabelle einer .xls Datei über das Event Modell ein. Dabei
+	 * wird nie das vollständige Workbook im Speicher aufgebaut, die übrigen
+	 * Tabellen werden übersprungen. Formeln liefern ihr zuletzt berechnetes
+	 * Ergebnis.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @return Die erste Tabelle der Datei
+	 */
+	public static WriteableContent readXLSStreamed(String pathfile) throws IOException, URISyntaxException {
+		List<WriteableContent> contents = readXLSStreamed(pathfile, 1);
+		return contents.isEmpty() ? new WriteableContent() : contents.get(0);
+	}
+
+	/**
+	 * Liest alle Tabellen einer .xls Datei in einem Durchlauf über das Event
+	 * Modell ein. Zahlen, Wahrheitswerte und Datumsangaben behalten ihren Typ.
+	 * Formeln liefern ihr zuletzt berechnetes Ergebnis.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @return Alle Tabellen der Datei
+	 */
+	public static List<WriteableContent> readXLSStreamedImproved(String pathfile)
+			throws IOException, URISyntaxException {
+		return readXLSStreamed(pathfile, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Liest alle Tabellen einer .xls Datei über das Event Modell ein und gibt
+	 * jede Zeile als Text direkt an den Listener weiter. Es wird immer nur eine
+	 * Zeile und die Tabelle der gemeinsamen Texte im Speicher gehalten.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @param listener Empfängt die gelesenen Zeilen
+	 */
+	public static void readXLSStreamed(String pathfile, RowListener listener) throws IOException, URISyntaxException {
+		PhaseTimer timer = PhaseTimer.start("readXLSStreamed", Phase.PARSE, null);
+		CountingRowListener counting = new CountingRowListener(listener);
+
+		try (POIFSFileSystem fs = openFileSystem(pathfile);
+				XLSEventReader reader = new XLSEventReader(counting, Integer.MAX_VALUE)) {
+			reader.readGlobals(fs.getRoot());
+			reader.readSheets(fs.getRoot());
+		}
+
+		timer.rows(counting.getRows()).cells(counting.getCells()).bytes(fileSize(pathfile)).end();
+	}
+
+	private static List<WriteableContent> readXLSStreamed(String pathfile, int sheetLimit) throws IOException {
+		PhaseTimer timer = PhaseTimer.start("readXLSStreamed", Phase.PARSE, null);
+		List<WriteableContent> contents = new ArrayList<>();
+
+		try (POIFSFileSystem fs = openFileSystem(pathfile); XLSEventReader reader = new XLSEventReader(contents)) {
+			reader.readGlobals(fs.getRoot());
+			if (sheetLimit > 1)
+				reader.readSheets(fs.getRoot());
+			else if (!reader.getSheetNames().isEmpty())
+				reader.readSheet(fs.getRoot(), 0);
+		}
+
+		timer.cells(contents.stream().mapToLong(WriteableContent::getCellCount).sum()).bytes(fileSize(pathfile)).end();
+		return contents;
+	}
+
+	/**
+	 * Liest die erste Tabelle einer .xlsx Datei über SAX ein. Dabei wird nie das
+	 * vollständige Workbook im Speicher aufgebaut.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @return Die erste Tabelle der Datei
+	 */
+	public static WriteableContent readXLSXStreamed(String pathfile) throws IOException, URISyntaxException {
+		ContentCollector collector = new ContentCollector();
+		readXLSXStreamed(pathfile, collector, 1, new ImportOptions());
+		return collector.getFirst();
+	}
+
+	/**
+	 * Liest alle Tabellen einer .xlsx Datei über SAX ein. Dabei wird nie das
+	 * vollständige Workbook im Speicher aufgebaut.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @return Alle Tabellen der Datei
+	 */
+	public static List<WriteableContent> readXLSXStreamedImproved(String pathfile)
+			throws IOException, URISyntaxException {
+		ContentCollector collector = new ContentCollector();
+		readXLSXStreamed(pathfile, collector, Integer.MAX_VALUE, new ImportOptions());
+		return collector.getContents();
+	}
+
+	/**
+	 * Liest alle Tabellen einer .xlsx Datei über SAX ein und gibt jede Zeile
+	 * direkt an den Listener weiter. Es wird immer nur eine Zeile im Speicher
+	 * gehalten.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @param listener Empfängt die gelesenen Zeilen
+	 */
+	public static void readXLSXStreamed(String pathfile, RowListener listener) throws IOException, URISyntaxException {
+		readXLSXStreamed(pathfile, listener, Integer.MAX_VALUE, new ImportOptions());
+	}
+
+	/**
+	 * Liest die in den Optionen ausgewählten Spalten und Zeilen der ersten
+	 * Tabelle einer .xlsx Datei über SAX ein.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @param options  Die zu übernehmenden Spalten und Zeilen
+	 * @return Der ausgewählte Inhalt der ersten Tabelle
+	 */
+	public static WriteableContent readXLSXStreamed(String pathfile, ImportOptions options)
+			throws IOException, URISyntaxException {
+		ContentCollector collector = new ContentCollector();
+		readXLSXStreamed(pathfile, collector, 1, options);
+		return collector.getFirst();
+	}
+
+	/**
+	 * Liest alle Tabellen einer .xlsx Datei über SAX ein und gibt die in den
+	 * Optionen ausgewählten Spalten und Zeilen jeder Tabelle direkt an den
+	 * Listener weiter. Nach dem Zeilenbereich wird das Lesen der Tabelle
+	 * abgebrochen.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @param options  Die zu übernehmenden Spalten und Zeilen
+	 * @param listener Empfängt die übernommenen Zeilen
+	 */
+	public static void readXLSXStreamed(String pathfile, ImportOptions options, RowListener listener)
+			throws IOException, URISyntaxException {
+		readXLSXStreamed(pathfile, listener, Integer.MAX_VALUE, options);
+	}
+
+	private static void readXLSXStreamed(String pathfile, RowListener listener, int sheetLimit,
+			ImportOptions options) throws IOException {
+		try {
+			OPCPackage pkg = openPackage(pathfile);
+			try {
+				XSSFReader reader = new XSSFReader(pkg);
+				ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+				StylesTable styles = reader.getStylesTable();
+				boolean date1904 = isDate1904(reader);
+				XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+
+				CountingRowListener counting = new CountingRowListener(listener);
+				for (int index = 0; index < sheetLimit && sheets.hasNext(); index++) {
+					try (InputStream sheet = sheets.next()) {
+						String name = sheets.getSheetName();
+						PhaseTimer timer = PhaseTimer.start("readXLSXStreamed", Phase.PARSE, name);
+						counting.reset();
+						listener.startSheet(index, name);
+						if (options.isAll())
+							parseXLSXSheet(sheet, styles, strings, date1904, counting);
+						else
+							parseXLSXSheet(sheet, styles, strings, date1904, new RowProjection(options, counting));
+						listener.endSheet(index, name);
+						timer.rows(counting.getRows()).cells(counting.getCells()).end();
 					}
 				}
+			} finally {
+				pkg.revert();
 			}
-			dataContent.add(input);
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new IOException("Fehler beim Lesen einer .xlsx Datei", e);
 		}
-		inputStream.close();
-		w.close();
+	}
 
-		return dataContent;
+	/**
+	 * Liest die Zeilen eines einzelnen Sheets einer .xlsx Datei über SAX.
+	 *
+	 * @param sheet    Der Inhalt des Sheets
+	 * @param styles   Die Formatierungen des Workbooks
+	 * @param strings  Die gemeinsamen Texte des Workbooks
+	 * @param date1904 Ob das Workbook Datumsangaben ab 1904 zählt
+	 * @param listener Empfängt die gelesenen Zeilen
+	 */
+	static void parseXLSXSheet(InputStream sheet, StylesTable styles, SharedStrings strings, boolean date1904,
+			RowListener listener) throws IOException, SAXException, ParserConfigurationException {
+		XMLReader parser = XMLHelper.newXMLReader();
+		parser.setContentHandler(
+				new XLSXSheetHandler.Parser(styles, strings, new XLSXSheetHandler(listener), date1904));
+		parser.parse(new InputSource(sheet));
+	}
+
+	/**
+	 * Liest die ausgewählten Zeilen eines einzelnen Sheets einer .xlsx Datei über
+	 * SAX. Sobald alle benötigten Zeilen gelesen wurden, wird abgebrochen.
+	 *
+	 * @param sheet      Der Inhalt des Sheets
+	 * @param styles     Die Formatierungen des Workbooks
+	 * @param strings    Die gemeinsamen Texte des Workbooks
+	 * @param date1904   Ob das Workbook Datumsangaben ab 1904 zählt
+	 * @param projection Empfängt die gelesenen Zeilen
+	 */
+	static void parseXLSXSheet(InputStream sheet, StylesTable styles, SharedStrings strings, boolean date1904,
+			RowProjection projection) throws IOException, SAXException, ParserConfigurationException {
+		XMLReader parser = XMLHelper.newXMLReader();
+		parser.setContentHandler(new XLSXSheetHandler.Parser(styles, strings, new XLSXSheetHandler(projection),
+				date1904) {
+			@Override
+			public void startElement(String uri, String localName, String qName, Attributes attributes)
+					throws SAXException {
+				if (projection.isDone())
+					throw new XLSXLazyWorkbook.StopParsing();
+				super.startElement(uri, localName, qName, attributes);
+			}
+		});
+		try {
+			parser.parse(new InputSource(sheet));
+		} catch (XLSXLazyWorkbook.StopParsing e) {
+			// Alle benötigten Zeilen wurden gelesen
+		}
+	}
+
+	/**
+	 * @return Ob das Workbook Datumsangaben ab 1904 zählt
+	 */
+	static boolean isDate1904(XSSFReader reader)
+			throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+		try (InputStream workbook = reader.getWorkbookData()) {
+			return XLSXSheetHandler.isDate1904(workbook);
+		}
+	}
+
+	/**
+	 * @return Die Größe der Datei oder -1, wenn sie aus dem Classpath stammt
+	 */
+	static long fileSize(String pathfile) {
+		File file = new File(pathfile);
+		return ExcelImporter.class.getClassLoader().getResource(pathfile) == null && file.isFile() ? file.length()
+				: -1;
+	}
+
+	/**
+	 * Öffnet Dateien direkt, damit POI nur die benötigten Einträge des Archivs
+	 * entpackt. Ressourcen aus dem Classpath werden über einen Stream gelesen.
+	 */
+	static OPCPackage openPackage(String pathfile) throws IOException, InvalidFormatException {
+		File file = new File(pathfile);
+		if (ExcelImporter.class.getClassLoader().getResource(pathfile) == null && file.isFile())
+			return OPCPackage.open(file, PackageAccess.READ);
+		return OPCPackage.open(getInput(pathfile));
+	}
+
+	/**
+	 * Öffnet eine .xls Datei, ohne die Tabellen in {@link WriteableContent}
+	 * umzuwandeln. Das passiert erst beim ersten Zugriff auf eine Tabelle.
+	 *
+	 * @param pathfile    Der Pfad zur Datei
+	 * @param formulaMode Wie Zellen mit Formeln gelesen werden
+	 * @return Das geöffnete Workbook, das nach der Benutzung geschlossen werden
+	 *         muss
+	 */
+	public static LazyWorkbook openXLSLazy(String pathfile, FormulaMode formulaMode) throws IOException {
+		try (InputStream inputStream = getInput(pathfile)) {
+			return new XLSLazyWorkbook(new HSSFWorkbook(inputStream), formulaMode);
+		}
+	}
+
+	/**
+	 * Öffnet eine .xlsx Datei, ohne die Tabellen zu lesen. Beim Öffnen werden nur
+	 * die Namen der Tabellen bestimmt, der Inhalt einer Tabelle wird erst beim
+	 * ersten Zugriff über SAX gelesen.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @return Das geöffnete Workbook, das nach der Benutzung geschlossen werden
+	 *         muss
+	 */
+	public static LazyWorkbook openXLSXLazy(String pathfile) throws IOException {
+		try {
+			return new XLSXLazyWorkbook(openPackage(pathfile));
+		} catch (OpenXML4JException e) {
+			throw new IOException("Fehler beim Öffnen einer .xlsx Datei", e);
+		}
+	}
+
+	/**
+	 * Liest die Namen aller Tabellen einer .xls Datei und von jeder Tabelle die
+	 * ersten Zeilen und ihre Ausdehnung über das Event Modell. Jede Tabelle wird
+	 * direkt an ihrem Anfang gelesen und nach der letzten benötigten Zeile
+	 * abgebrochen, die Dauer hängt daher kaum von der Größe der Datei ab.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @param rows     Die Anzahl der Zeilen je Tabelle
+	 * @return Die Vorschau aller Tabellen in der Reihenfolge der Datei
+	 */
+	public static List<SheetPreview> peekXLS(String pathfile, int rows) throws IOException {
+		if (rows < 0)
+			throw new IllegalArgumentException("Invalid row count: " + rows);
+
+		PhaseTimer timer = PhaseTimer.start("peekXLS", Phase.PARSE, null);
+		ContentCollector collector = new ContentCollector();
+		CountingRowListener counting = new CountingRowListener(collector);
+		XLSEventReader reader = new XLSEventReader(counting, rows);
+		List<SheetPreview> previews = new ArrayList<>();
+
+		try (POIFSFileSystem fs = openFileSystem(pathfile)) {
+			reader.readGlobals(fs.getRoot());
+			List<String> names = reader.getSheetNames();
+			for (int i = 0; i < names.size(); i++) {
+				reader.readSheet(fs.getRoot(), i);
+				List<WriteableContent> contents = collector.getContents();
+				previews.add(new SheetPreview(names.get(i),
+						contents.size() > i ? contents.get(i) : new WriteableContent(names.get(i)),
+						reader.getDimension()));
+			}
+		}
+
+		timer.rows(counting.getRows()).cells(counting.getCells()).end();
+		return previews;
+	}
+
+	/**
+	 * Liest die Namen aller Tabellen einer .xlsx Datei und von jeder Tabelle die
+	 * ersten Zeilen und ihre Ausdehnung über SAX. Jede Tabelle wird nach der
+	 * letzten benötigten Zeile abgebrochen und von den gemeinsamen Texten wird
+	 * nur der benötigte Anfang gelesen.
+	 *
+	 * @param pathfile Der Pfad zur Datei
+	 * @param rows     Die Anzahl der Zeilen je Tabelle
+	 * @return Die Vorschau aller Tabellen in der Reihenfolge der Datei
+	 */
+	public static List<SheetPreview> peekXLSX(String pathfile, int rows) throws IOException {
+		if (rows < 0)
+			throw new IllegalArgumentException("Invalid row count: " + rows);
+
+		PhaseTimer timer = PhaseTimer.start("peekXLSX", Phase.PARSE, null);
+		List<SheetPreview> previews = new ArrayList<>();
+
+		try (XLSXLazyWorkbook workbook = (XLSXLazyWorkbook) openXLSXLazy(pathfile)) {
+			for (int i = 0; i < workbook.getSheetCount(); i++)
+				previews.add(workbook.peek(i, rows));
+		}
+
+		timer.rows(previews.stream().mapToLong(preview -> preview.getContent().getMaxLength().y + 1).sum()).end();
+		return previews;
+	}
+
+	/**
+	 * Öffnet Dateien direkt, damit POI nur die gelesenen Blöcke lädt. Ressourcen
+	 * aus dem Classpath werden über einen Stream gelesen.
+	 */
+	static POIFSFileSystem openFileSystem(String pathfile) throws IOException {
+		File file = new File(pathfile);
+		if (ExcelImporter.class.getClassLoader().getResource(pathfile) == null && file.isFile())
+			return new POIFSFileSystem(file, true);
+		try (InputStream input = getInput(pathfile)) {
+			return new POIFSFileSystem(input);
+		}
 	}
 
 	private static InputStream getInput(String name) {
@@ -0,0 +1,47 @@
+/*
+ * ExcelAndCSVToArray
+ * FormulaMode.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Legt fest, wie die Importer Zellen mit Formeln einlesen.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+public enum FormulaMode {
+
+	/**
+	 * Übernimmt das Ergebnis, das beim letzten Speichern in der Datei abgelegt
+	 * wurde. Es wird nichts berechnet.
+	 */
+	CACHED,
+
+	/**
+	 * Berechnet die Formeln mit einem gemeinsamen Evaluator pro Workbook, dessen
+	 * Zwischenergebnisse für alle Zellen wiederverwendet werden.
+	 */
+	EVALUATE,
+
+	/**
+	 * Übernimmt den Text der Formel, z.B. "SUM(A1:A3)".
+	 */
+	FORMULA
+
+}
@@ -0,0 +1,303 @@
+/*
+ * ExcelAndCSVToArray
+ * ImportCache.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Speichert die Ergebnisse von Importen zwischen. Wird dieselbe Datei erneut
+ * eingelesen, wird das gespeicherte Ergebnis zurückgegeben, solange Größe,
+ * Änderungszeit und Prüfsumme des Inhalts übereinstimmen. Ressourcen aus dem
+ * Classpath werden über ihren Inhalt erkannt.
+ * <p>
+ * Alle Aufrufer erhalten dieselbe unveränderliche Ansicht, ändernde Methoden
+ * werfen eine {@link UnsupportedOperationException}. Wird ein veränderbarer
+ * Inhalt benötigt, muss er kopiert werden.
+ * <p>
+ * Der Cache ist durch den geschätzten Speicherbedarf der Inhalte begrenzt. Ist
+ * er voll, werden die am längsten nicht genutzten Einträge verworfen.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+public class ImportCache {
+
+	/**
+	 * Die Größe des Caches in Bytes, wenn keine angegeben wird
+	 */
+	public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+	private static final int MAP_CHUNK = 1 << 30;
+
+	private final long maxBytes;
+	private final boolean verifyContent;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+
+	public ImportCache() {
+		this(DEFAULT_MAX_BYTES, true);
+	}
+
+	/**
+	 * @param maxBytes      Der maximale geschätzte Speicherbedarf aller Einträge
+	 * @param verifyContent Ob neben Größe und Änderungszeit auch eine Prüfsumme
+	 *                      des Inhalts verglichen wird. Ohne Prüfsumme muss die
+	 *                      Datei für einen Treffer nicht gelesen werden.
+	 */
+	public ImportCache(long maxBytes, boolean verifyContent) {
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("maxBytes must be positive, was " + maxBytes);
+		this.maxBytes = maxBytes;
+		this.verifyContent = verifyContent;
+	}
+
+	public WriteableContent readCSV(String pathfile) throws IOException, URISyntaxException {
+		return this.readCSV(pathfile, CSVTokenizer.DEFAULT_DELIMITER);
+	}
+
+	public WriteableContent readCSV(String pathfile, char delimiter) throws IOException, URISyntaxException {
+		return this.single("csv" + delimiter, pathfile, () -> CSVImporter.readCSV(pathfile, delimiter));
+	}
+
+	public WriteableContent readXLS(String pathfile) throws IOException, URISyntaxException {
+		return this.readXLS(pathfile, FormulaMode.EVALUATE);
+	}
+
+	public WriteableContent readXLS(String pathfile, FormulaMode formulaMode) throws IOException, URISyntaxException {
+		return this.single("xls" + formulaMode, pathfile, () -> ExcelImporter.readXLS(pathfile, formulaMode));
+	}
+
+	public WriteableContent readXLSX(String pathfile) throws IOException, URISyntaxException {
+		return this.readXLSX(pathfile, FormulaMode.EVALUATE);
+	}
+
+	public WriteableContent readXLSX(String pathfile, FormulaMode formulaMode) throws IOException, URISyntaxException {
+		return this.single("xlsx" + formulaMode, pathfile, () -> ExcelImporter.readXLSX(pathfile, formulaMode));
+	}
+
+	public List<WriteableContent> readXLSImproved(String pathfile) throws IOException, URISyntaxException {
+		return this.load("xls*", pathfile, () -> ExcelImporter.readXLSImproved(pathfile));
+	}
+
+	public List<WriteableContent> readXLSXImproved(String pathfile) throws IOException, URISyntaxException {
+		return this.load("xlsx*", pathfile, () -> ExcelImporter.readXLSXImproved(pathfile));
+	}
+
+	/**
+	 * Verwirft alle Einträge zu einer Datei.
+	 *
+	 * @param pathfile Der Pfad der Datei, wie er beim Import angegeben wurde
+	 */
+	public synchronized void invalidate(String pathfile) {
+		Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (entry.getValue().pathfile.equals(pathfile)) {
+				this.bytes -= entry.getValue().bytes;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Verwirft alle Einträge.
+	 */
+	public synchronized void invalidateAll() {
+		this.entries.clear();
+		this.bytes = 0;
+	}
+
+	/**
+	 * @return Die Anzahl gespeicherter Importe
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * @return Der geschätzte Speicherbedarf aller Einträge in Bytes
+	 */
+	public synchronized long getBytes() {
+		return this.bytes;
+	}
+
+	private WriteableContent single(String format, String pathfile, Loader<WriteableContent> loader)
+			throws IOException, URISyntaxException {
+		return this.load(format, pathfile, () -> Collections.singletonList(loader.load())).get(0);
+	}
+
+	/**
+	 * Sucht einen passenden Eintrag oder importiert die Datei. Der Import läuft
+	 * außerhalb der Sperre, gleichzeitige Importe derselben Datei werden daher
+	 * nicht zusammengefasst.
+	 */
+	private List<WriteableContent> load(String format, String pathfile, Loader<List<WriteableContent>> loader)
+			throws IOException, URISyntaxException {
+		String key = format + '\u0000' + pathfile;
+		Identity identity = this.identify(pathfile);
+
+		synchronized (this) {
+			Entry entry = this.entries.get(key);
+			if (entry != null && entry.identity.equals(identity))
+				return entry.contents;
+		}
+
+		List<WriteableContent> views = new ArrayList<>();
+		long weight = 0;
+		for (WriteableContent content : loader.load()) {
+			views.add(new ReadOnlyContent(content));
+			weight += content.cells().estimateBytes();
+		}
+		views = Collections.unmodifiableList(views);
+
+		synchronized (this) {
+			Entry old = this.entries.remove(key);
+			if (old != null)
+				this.bytes -= old.bytes;
+
+			if (weight <= this.maxBytes) {
+				this.entries.put(key, new Entry(pathfile, identity, views, weight));
+				this.bytes += weight;
+				this.evict();
+			}
+		}
+		return views;
+	}
+
+	private void evict() {
+		Iterator<Entry> iterator = this.entries.values().iterator();
+		while (this.bytes > this.maxBytes && iterator.hasNext()) {
+			this.bytes -= iterator.next().bytes;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Bestimmt die Identität einer Datei. Wie beim Import wird zuerst im
+	 * Classpath gesucht.
+	 */
+	private Identity identify(String pathfile) throws IOException {
+		URL resource = ImportCache.class.getClassLoader().getResource(pathfile);
+		if (resource != null && !"file".equals(resource.getProtocol())) {
+			try (InputStream input = resource.openStream()) {
+				byte[] data = input.readAllBytes();
+				CRC32C crc = new CRC32C();
+				crc.update(data);
+				return new Identity(resource.toString(), data.length, 0, crc.getValue());
+			}
+		}
+
+		Path path;
+		try {
+			path = resource != null ? Paths.get(resource.toURI()) : new File(pathfile).toPath();
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+
+		File file = path.toFile();
+		long size = file.length(), modified = file.lastModified();
+		return new Identity(path.toAbsolutePath().toString(), size, modified,
+				this.verifyContent && file.isFile() ? checksum(path) : 0);
+	}
+
+	/**
+	 * Berechnet die Prüfsumme über die in den Speicher gemappte Datei.
+	 */
+	private static long checksum(Path path) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += MAP_CHUNK) {
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(MAP_CHUNK, size - position));
+				crc.update(buffer);
+			}
+		}
+		return crc.getValue();
+	}
+
+	@FunctionalInterface
+	private interface Loader<T> {
+		T load() throws IOException, URISyntaxException;
+	}
+
+	private static final class Identity {
+
+		private final String location;
+		private final long size, modified, checksum;
+
+		Identity(String location, long size, long modified, long checksum) {
+			this.location = location;
+			this.size = size;
+			this.modified = modified;
+			this.checksum = checksum;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Identity))
+				return false;
+			Identity other = (Identity) obj;
+			return this.location.equals(other.location) && this.size == other.size
+					&& this.modified == other.modified && this.checksum == other.checksum;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.location, this.size, this.modified, this.checksum);
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final String pathfile;
+		private final Identity identity;
+		private final List<WriteableContent> contents;
+		private final long bytes;
+
+		Entry(String pathfile, Identity identity, List<WriteableContent> contents, long bytes) {
+			this.pathfile = pathfile;
+			this.identity = identity;
+			this.contents = contents;
+			this.bytes = bytes;
+		}
+
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * ExcelAndCSVToArray
+ * ImportOptions.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Legt fest, welche Spalten und Zeilen ein Import übernimmt. Alle anderen
+ * Zellen werden schon beim Lesen übersprungen und nie gespeichert.
+ *
+ * <pre>
+ * ImportOptions options = new ImportOptions().columns("Name", "Preis").rows(0, 1000)
+ * 		.filter((y, cells) -&gt; !cells[1].isEmpty());
+ * WriteableContent content = CSVImporter.readCSV("preise.csv", ';', options);
+ * </pre>
+ *
+ * Die übernommenen Spalten stehen in der Reihenfolge der Auswahl, die
+ * übernommenen Zeilen werden lückenlos durchnummeriert. Die Kopfzeile steht
+ * immer in der ersten Zeile und wird weder durch den Zeilenbereich noch durch
+ * den Filter entfernt.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+public final class ImportOptions {
+
+	/**
+	 * Entscheidet, ob eine Zeile übernommen wird.
+	 */
+	@FunctionalInterface
+	public interface RowFilter {
+
+		/**
+		 * @param y     Die Zeilennummer in der Datei
+		 * @param cells Die übernommenen Spalten der Zeile, leere Zellen sind null
+		 * @return Ob die Zeile übernommen wird
+		 */
+		boolean test(int y, String[] cells);
+
+	}
+
+	private final List<Object> columns = new ArrayList<>();
+	private int headerRow = -1;
+	private int fromRow = 0, toRow = Integer.MAX_VALUE;
+	private RowFilter filter;
+
+	/**
+	 * Übernimmt zusätzlich die Spalten mit den gegebenen Indizes.
+	 *
+	 * @param indices Die Spalten, beginnend bei 0
+	 * @return Diese Optionen
+	 */
+	public ImportOptions columns(int... indices) {
+		for (int index : indices) {
+			if (index < 0)
+				throw new IllegalArgumentException("Invalid column index: " + index);
+			this.columns.add(index);
+		}
+		return this;
+	}
+
+	/**
+	 * Übernimmt zusätzlich die Spalten mit den gegebenen Namen. Die Namen werden
+	 * in der Kopfzeile gesucht, ohne gesetzte Kopfzeile in der ersten Zeile.
+	 *
+	 * @param names Die Namen der Spalten
+	 * @return Diese Optionen
+	 */
+	public ImportOptions columns(String... names) {
+		this.columns.addAll(Arrays.asList(names));
+		if (this.headerRow < 0)
+			this.headerRow = 0;
+		return this;
+	}
+
+	/**
+	 * @param row Die Zeile mit den Spaltennamen. Zeilen davor werden nicht
+	 *            übernommen.
+	 * @return Diese Optionen
+	 */
+	public ImportOptions headerRow(int row) {
+		if (row < 0)
+			throw new IllegalArgumentException("Invalid header row: " + row);
+		this.headerRow = row;
+		return this;
+	}
+
+	/**
+	 * Übernimmt nur die Zeilen from bis ausschließlich to. Danach wird das Lesen
+	 * abgebrochen.
+	 *
+	 * @param from Die erste Zeile in der Datei
+	 * @param to   Die Zeile hinter der letzten Zeile
+	 * @return Diese Optionen
+	 */
+	public ImportOptions rows(int from, int to) {
+		if (from < 0 || to < from)
+			throw new IllegalArgumentException("Invalid row range: " + from + " to " + to);
+		this.fromRow = from;
+		this.toRow = to;
+		return this;
+	}
+
+	/**
+	 * @param filter Übernimmt nur die Zeilen, die der Filter akzeptiert
+	 * @return Diese Optionen
+	 */
+	public ImportOptions filter(RowFilter filter) {
+		this.filter = filter;
+		return this;
+	}
+
+	/**
+	 * @return Ob alle Zellen unverändert übernommen werden
+	 */
+	boolean isAll() {
+		return this.columns.isEmpty() && this.headerRow < 0 && this.fromRow == 0 && this.toRow == Integer.MAX_VALUE
+				&& this.filter == null;
+	}
+
+	int getHeaderRow() {
+		return this.headerRow;
+	}
+
+	int getFromRow() {
+		return this.fromRow;
+	}
+
+	int getToRow() {
+		return this.toRow;
+	}
+
+	RowFilter getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * @return Ob Spalten über ihren Namen ausgewählt wurden
+	 */
+	boolean needsHeader() {
+		for (Object column : this.columns)
+			if (column instanceof String)
+				return true;
+		return false;
+	}
+
+	/**
+	 * @param header Die Kopfzeile oder null, wenn keine Namen gesucht werden
+	 * @return Die ausgewählten Spalten in der Datei oder null für alle Spalten
+	 */
+	int[] resolve(String[] header) {
+		if (this.columns.isEmpty())
+			return null;
+
+		int[] resolved = new int[this.columns.size()];
+		for (int i = 0; i < resolved.length; i++) {
+			Object column = this.columns.get(i);
+			resolved[i] = column instanceof Integer ? (Integer) column : find(header, (String) column);
+		}
+		return resolved;
+	}
+
+	private static int find(String[] header, String name) {
+		if (header != null)
+			for (int x = 0; x < header.length; x++)
+				if (header[x] != null && header[x].trim().equals(name))
+					return x;
+		throw new IllegalArgumentException("Unknown column: " + name);
+	}
+
+}
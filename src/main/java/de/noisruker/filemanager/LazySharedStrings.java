@@ -0,0 +1,163 @@
+/*
+ * ExcelAndCSVToArray
+ * LazySharedStrings.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Die gemeinsamen Texte einer .xlsx Datei, die nur so weit gelesen werden, wie
+ * Zellen sie benötigen. Die Texte stehen in der Reihenfolge ihres ersten
+ * Auftretens, für die ersten Zeilen einer Tabelle reicht daher meist der Anfang
+ * der Liste.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class LazySharedStrings implements SharedStrings, Closeable {
+
+	private final InputStream input;
+	private final XMLStreamReader reader;
+	private final List<String> items = new ArrayList<>();
+	private final StringBuilder text = new StringBuilder();
+
+	private int count, uniqueCount;
+	private boolean finished;
+
+	/**
+	 * @param input Der Inhalt von sharedStrings.xml oder null, wenn die Datei
+	 *              keine gemeinsamen Texte hat
+	 */
+	LazySharedStrings(InputStream input) throws IOException {
+		this.input = input;
+		if (input == null) {
+			this.reader = null;
+			this.finished = true;
+			return;
+		}
+
+		try {
+			this.reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(input);
+			while (this.reader.hasNext())
+				if (this.reader.next() == XMLStreamConstants.START_ELEMENT && "sst".equals(this.reader.getLocalName())) {
+					this.count = parse(this.reader.getAttributeValue(null, "count"));
+					this.uniqueCount = parse(this.reader.getAttributeValue(null, "uniqueCount"));
+					return;
+				}
+			this.finished = true;
+		} catch (XMLStreamException e) {
+			throw new IOException("Fehler beim Lesen der gemeinsamen Texte", e);
+		}
+	}
+
+	@Override
+	public RichTextString getItemAt(int idx) {
+		try {
+			while (this.items.size() <= idx && this.readItem())
+				;
+		} catch (XMLStreamException e) {
+			throw new POIXMLException("Fehler beim Lesen der gemeinsamen Texte", e);
+		}
+		return new XSSFRichTextString(idx < this.items.size() ? this.items.get(idx) : "");
+	}
+
+	@Override
+	public int getCount() {
+		return this.count;
+	}
+
+	@Override
+	public int getUniqueCount() {
+		return this.uniqueCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (this.reader != null)
+				this.reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			if (this.input != null)
+				this.input.close();
+		}
+	}
+
+	/**
+	 * Liest den nächsten Eintrag "si". Die Texte aller "t" Einträge werden
+	 * zusammengefügt, die Lautschrift in "rPh" wird übersprungen.
+	 *
+	 * @return Ob ein Eintrag gelesen wurde
+	 */
+	private boolean readItem() throws XMLStreamException {
+		if (this.finished)
+			return false;
+
+		boolean inItem = false;
+		int phonetic = 0;
+		while (this.reader.hasNext()) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = this.reader.getLocalName();
+				if ("si".equals(name)) {
+					inItem = true;
+					this.text.setLength(0);
+				} else if ("rPh".equals(name)) {
+					phonetic++;
+				} else if ("t".equals(name) && inItem && phonetic == 0) {
+					this.text.append(this.reader.getElementText());
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				String name = this.reader.getLocalName();
+				if ("rPh".equals(name)) {
+					phonetic--;
+				} else if ("si".equals(name)) {
+					this.items.add(this.text.toString());
+					return true;
+				}
+			}
+		}
+
+		this.finished = true;
+		return false;
+	}
+
+	private static int parse(String value) {
+		try {
+			return value == null ? 0 : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
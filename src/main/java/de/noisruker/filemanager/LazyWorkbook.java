@@ -0,0 +1,152 @@
+/*
+ * ExcelAndCSVToArray
+ * LazyWorkbook.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ein geöffnetes Workbook, dessen Tabellen erst beim ersten Zugriff in einen
+ * {@link WriteableContent} umgewandelt werden. Nicht mehr benötigte Tabellen
+ * können mit {@link #release(int)} wieder freigegeben werden.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+public abstract class LazyWorkbook implements Closeable {
+
+	private final List<String> names;
+	private final WriteableContent[] sheets;
+	private final Vec2i[] dimensions;
+
+	LazyWorkbook(List<String> names) {
+		this.names = Collections.unmodifiableList(new ArrayList<>(names));
+		this.sheets = new WriteableContent[names.size()];
+		this.dimensions = new Vec2i[names.size()];
+	}
+
+	/**
+	 * @return Die Anzahl der Tabellen
+	 */
+	public int getSheetCount() {
+		return this.names.size();
+	}
+
+	/**
+	 * @return Die Namen aller Tabellen in der Reihenfolge der Datei
+	 */
+	public List<String> getSheetNames() {
+		return this.names;
+	}
+
+	/**
+	 * @param name Der Name der Tabelle
+	 * @return Der Index der Tabelle oder -1, wenn es keine Tabelle mit diesem
+	 *         Namen gibt
+	 */
+	public int getSheetIndex(String name) {
+		return this.names.indexOf(name);
+	}
+
+	/**
+	 * Gibt die Ausdehnung einer Tabelle zurück, ohne ihre Zellen zu lesen. Die
+	 * Werte stammen aus den Metadaten der Datei und können daher ungenau sein.
+	 *
+	 * @param index Der Index der Tabelle
+	 * @return Die größte Spalte (x) und Zeile (y) oder null, wenn die Datei
+	 *         keine Angabe enthält
+	 */
+	public synchronized Vec2i getDimension(int index) throws IOException {
+		if (this.dimensions[index] == null)
+			this.dimensions[index] = this.readDimension(index);
+		return this.dimensions[index] == null ? null : new Vec2i(this.dimensions[index]);
+	}
+
+	/**
+	 * Gibt eine Tabelle zurück und liest sie beim ersten Zugriff ein.
+	 *
+	 * @param index Der Index der Tabelle
+	 * @return Der Inhalt der Tabelle
+	 */
+	public synchronized WriteableContent getSheet(int index) throws IOException {
+		if (this.sheets[index] == null)
+			this.sheets[index] = this.load(index);
+		return this.sheets[index];
+	}
+
+	/**
+	 * Gibt eine Tabelle zurück und liest sie beim ersten Zugriff ein.
+	 *
+	 * @param name Der Name der Tabelle
+	 * @return Der Inhalt der Tabelle
+	 */
+	public WriteableContent getSheet(String name) throws IOException {
+		int index = this.getSheetIndex(name);
+		if (index < 0)
+			throw new IllegalArgumentException("No sheet named " + name);
+		return this.getSheet(index);
+	}
+
+	/**
+	 * Liest alle Tabellen ein, die noch nicht gelesen wurden.
+	 *
+	 * @return Alle Tabellen in der Reihenfolge der Datei
+	 */
+	public List<WriteableContent> getSheets() throws IOException {
+		List<WriteableContent> sheets = new ArrayList<>(this.getSheetCount());
+		for (int i = 0; i < this.getSheetCount(); i++)
+			sheets.add(this.getSheet(i));
+		return sheets;
+	}
+
+	/**
+	 * @param index Der Index der Tabelle
+	 * @return Ob die Tabelle bereits eingelesen wurde
+	 */
+	public synchronized boolean isLoaded(int index) {
+		return this.sheets[index] != null;
+	}
+
+	/**
+	 * Gibt den eingelesenen Inhalt einer Tabelle frei. Beim nächsten Zugriff
+	 * wird die Tabelle erneut gelesen.
+	 *
+	 * @param index Der Index der Tabelle
+	 */
+	public synchronized void release(int index) {
+		this.sheets[index] = null;
+	}
+
+	/**
+	 * Gibt den eingelesenen Inhalt aller Tabellen frei.
+	 */
+	public synchronized void releaseAll() {
+		Arrays.fill(this.sheets, null);
+	}
+
+	abstract WriteableContent load(int index) throws IOException;
+
+	abstract Vec2i readDimension(int index) throws IOException;
+
+}
@@ -0,0 +1,224 @@
+/*
+ * ExcelAndCSVToArray
+ * ParallelCSVReader.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import de.noisruker.filemanager.metrics.Phase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Liest eine UTF-8 CSV Datei parallel ein. Die Datei wird über einen
+ * {@link FileChannel} in den Speicher gemappt und an Zeilenenden, die nicht in
+ * Anführungszeichen stehen, in Blöcke geteilt. Die Blöcke werden auf einem
+ * {@link ForkJoinPool} zerlegt und danach in Dateireihenfolge zusammengeführt.
+ * <p>
+ * Die Suche nach den Blockgrenzen ist ein einzelner Durchlauf über die ganze
+ * Datei, bevor die parallele Arbeit beginnt. Ob ein Zeilenumbruch in
+ * Anführungszeichen steht, hängt von allen Zeichen davor ab, deshalb lässt sie
+ * sich nicht von beliebigen Stellen aus parallel beginnen. Der Durchlauf prüft
+ * nur Bytes und ist deutlich schneller als das Zerlegen selbst.
+ * <p>
+ * Jeder Block hält seine Zeilen bis zum Zusammenführen als eigene Liste. Der
+ * Speicherbedarf liegt daher kurzzeitig bei etwa dem Doppelten der Tabelle.
+ * Wo das zu viel ist, sollte {@link CSVImporter#readCSV(String, char)}
+ * verwendet werden.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class ParallelCSVReader {
+
+	/**
+	 * Kleinere Blöcke lohnen den Aufwand für die Aufteilung nicht.
+	 */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * Die Größe der Fenster, in denen die Datei nach Blockgrenzen durchsucht
+	 * wird.
+	 */
+	private static final long SCAN_WINDOW = 1 << 28;
+
+	private static final int DECODE_BUFFER = 1 << 16;
+
+	private ParallelCSVReader() {
+	}
+
+	static WriteableContent read(Path path, char delimiter, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long[] bounds = split(channel, pool.getParallelism() * 4L, delimiter);
+
+			List<ForkJoinTask<List<String[]>>> tasks = new ArrayList<>(bounds.length - 1);
+			for (int i = 0; i < bounds.length - 1; i++) {
+				long start = bounds[i], end = bounds[i + 1];
+				boolean first = i == 0;
+				tasks.add(pool.submit(ForkJoinTask.adapt(() -> parse(channel, start, end, delimiter, first))));
+			}
+
+			// Enthält auch das Warten auf noch laufende Blöcke
+			PhaseTimer timer = PhaseTimer.start("readCSVParallel", Phase.MATERIALIZE, null);
+			WriteableContent writeable = new WriteableContent().enableDictionaryEncoding();
+			int y = 0;
+			for (ForkJoinTask<List<String[]>> task : tasks) {
+				for (String[] row : join(task))
+					writeable.addLine(new Vec2i(0, y++), row);
+			}
+			timer.rows(y).cells(writeable.getCellCount()).bytes(channel.size()).end();
+			return writeable;
+		}
+	}
+
+	/**
+	 * Sucht die Blockgrenzen. Dazu wird die Datei einmal mit denselben Regeln
+	 * wie im {@link CSVTokenizer} durchlaufen: Ein Anführungszeichen öffnet nur
+	 * am Anfang eines Feldes ein Feld in Anführungszeichen, innerhalb eines
+	 * solchen Feldes ist '""' ein Anführungszeichen im Text. So liegt keine
+	 * Grenze innerhalb eines Feldes in Anführungszeichen. Das ist für UTF-8
+	 * sicher, da die Bytes von '"', '\r', '\n' und ASCII Trennzeichen nie
+	 * Teil eines Mehrbyte-Zeichens sind. Andere Trennzeichen lassen sich nicht
+	 * an einzelnen Bytes erkennen, die Datei wird dann als ein Block gelesen.
+	 *
+	 * @return Die Startpositionen der Blöcke und als letzten Eintrag die
+	 *         Dateigröße
+	 */
+	static long[] split(FileChannel channel, long targetChunks, char delimiter) throws IOException {
+		long size = channel.size();
+		if (delimiter > 0x7F)
+			return new long[] { 0, size };
+		long chunkSize = Math.min(SCAN_WINDOW, Math.max(MIN_CHUNK_SIZE, size / Math.max(1, targetChunks)));
+
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(0L);
+
+		int state = CSVTokenizer.FIELD_START;
+		long next = chunkSize;
+
+		for (long windowStart = 0; windowStart < size && next < size; windowStart += SCAN_WINDOW) {
+			long windowSize = Math.min(SCAN_WINDOW, size - windowStart);
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+			for (int i = windowStart == 0 ? byteOrderMarkLength(window) : 0; i < windowSize; i++) {
+				byte b = window.get(i);
+				if (state == CSVTokenizer.QUOTED) {
+					if (b == CSVTokenizer.QUOTE)
+						state = CSVTokenizer.QUOTE_IN_QUOTED;
+				} else if (b == CSVTokenizer.QUOTE) {
+					// Mitten in einem Feld ohne Anführungszeichen gehört es zum Text
+					if (state != CSVTokenizer.UNQUOTED)
+						state = CSVTokenizer.QUOTED;
+				} else if (b == delimiter || b == '\r') {
+					state = CSVTokenizer.FIELD_START;
+				} else if (b == '\n') {
+					state = CSVTokenizer.FIELD_START;
+					if (windowStart + i + 1 >= next) {
+						long bound = windowStart + i + 1;
+						if (bound >= size)
+							break;
+						bounds.add(bound);
+						next = bound + chunkSize;
+					}
+				} else {
+					state = CSVTokenizer.UNQUOTED;
+				}
+			}
+		}
+		bounds.add(size);
+
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = bounds.get(i);
+		return result;
+	}
+
+	/**
+	 * @return Die Länge eines UTF-8 Byte Order Marks am Anfang des Fensters,
+	 *         sonst 0
+	 */
+	private static int byteOrderMarkLength(ByteBuffer window) {
+		return window.limit() >= 3 && window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB
+				&& window.get(2) == (byte) 0xBF ? 3 : 0;
+	}
+
+	private static List<String[]> parse(FileChannel channel, long start, long end, char delimiter, boolean first)
+			throws IOException {
+		PhaseTimer timer = PhaseTimer.start("readCSVParallel", Phase.PARSE, null);
+		List<String[]> rows = new ArrayList<>();
+		CSVTokenizer tokenizer = new CSVTokenizer(delimiter, (y, cells) -> rows.add(cells), first);
+
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer chars = CharBuffer.allocate(DECODE_BUFFER);
+
+		long position = start;
+		while (position < end) {
+			long length = Math.min(Integer.MAX_VALUE, end - position);
+			ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+			boolean last = position + length >= end;
+
+			CoderResult result;
+			do {
+				result = decoder.decode(bytes, chars, last);
+				chars.flip();
+				tokenizer.feed(chars.array(), chars.position(), chars.remaining());
+				chars.clear();
+			} while (result.isOverflow());
+
+			// Angeschnittene Mehrbyte-Zeichen werden mit dem nächsten Fenster gelesen
+			position += bytes.position();
+		}
+
+		decoder.flush(chars);
+		chars.flip();
+		tokenizer.feed(chars.array(), chars.position(), chars.remaining());
+		tokenizer.finish();
+
+		timer.rows(rows.size()).bytes(end - start).end();
+		return rows;
+	}
+
+	private static <T> T join(ForkJoinTask<T> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading CSV", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Fehler beim Lesen einer .csv Datei", e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * ExcelAndCSVToArray
+ * PhaseTimer.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import de.noisruker.filemanager.metrics.Metrics;
+import de.noisruker.filemanager.metrics.Phase;
+import de.noisruker.filemanager.metrics.PhaseEvent;
+import de.noisruker.filemanager.metrics.PhaseMetrics;
+import jdk.jfr.EventType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Misst einen Abschnitt eines Im- oder Exports und meldet ihn an die
+ * {@link Metrics} Listener und den Flight Recorder. Ist beides nicht aktiv,
+ * wird ein gemeinsamer Timer ohne Wirkung zurückgegeben.
+ *
+ * <pre>
+ * PhaseTimer timer = PhaseTimer.start("readCSV", Phase.PARSE, null);
+ * ...
+ * timer.rows(rows).cells(cells).end();
+ * </pre>
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+final class PhaseTimer {
+
+	private static final EventType EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+	private static final com.sun.management.ThreadMXBean THREADS = threads();
+	private static final PhaseTimer DISABLED = new PhaseTimer(null, null, null, null);
+
+	private final String operation;
+	private final Phase phase;
+	private final String sheet;
+	private final PhaseEvent event;
+	private final long start, allocated;
+
+	private long rows = -1, cells = -1, bytes = -1;
+
+	private PhaseTimer(String operation, Phase phase, String sheet, PhaseEvent event) {
+		this.operation = operation;
+		this.phase = phase;
+		this.sheet = sheet;
+		this.event = event;
+		this.start = System.nanoTime();
+		this.allocated = allocatedBytes();
+		if (event != null)
+			event.begin();
+	}
+
+	/**
+	 * @param operation Die aufgerufene Methode
+	 * @param phase     Der gemessene Abschnitt
+	 * @param sheet     Der Name der Tabelle oder null
+	 * @return Ein laufender Timer
+	 */
+	static PhaseTimer start(String operation, Phase phase, String sheet) {
+		boolean recording = EVENT_TYPE.isEnabled();
+		if (!recording && !Metrics.hasListeners())
+			return DISABLED;
+		return new PhaseTimer(operation, phase, sheet, recording ? new PhaseEvent() : null);
+	}
+
+	PhaseTimer rows(long rows) {
+		this.rows = rows;
+		return this;
+	}
+
+	PhaseTimer cells(long cells) {
+		this.cells = cells;
+		return this;
+	}
+
+	PhaseTimer bytes(long bytes) {
+		this.bytes = bytes;
+		return this;
+	}
+
+	/**
+	 * Beendet die Messung und meldet die Werte.
+	 */
+	void end() {
+		if (this == DISABLED)
+			return;
+
+		long duration = System.nanoTime() - this.start;
+		long allocated = this.allocated < 0 ? -1 : allocatedBytes() - this.allocated;
+
+		if (this.event != null) {
+			this.event.end();
+			if (this.event.shouldCommit()) {
+				this.event.operation = this.operation;
+				this.event.phase = this.phase.name();
+				this.event.sheet = this.sheet;
+				this.event.rows = this.rows;
+				this.event.cells = this.cells;
+				this.event.bytes = this.bytes;
+				this.event.allocated = allocated;
+				this.event.commit();
+			}
+		}
+
+		if (Metrics.hasListeners())
+			Metrics.publish(new PhaseMetrics(this.operation, this.phase, this.sheet, this.rows, this.cells,
+					this.bytes, duration, allocated));
+	}
+
+	private static long allocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean threads() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return null;
+		com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+		return sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled() ? sun : null;
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * ExcelAndCSVToArray
+ * ReadOnlyContent.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Eine unveränderliche Ansicht auf einen {@link WriteableContent}. Sie teilt
+ * sich die Zellen mit dem ursprünglichen Inhalt, alle ändernden Methoden werfen
+ * eine {@link UnsupportedOperationException}. Wird vom {@link ImportCache}
+ * an alle Aufrufer mit derselben Datei ausgegeben.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class ReadOnlyContent extends WriteableContent {
+
+	ReadOnlyContent(WriteableContent source) {
+		super(source);
+	}
+
+	@Override
+	public void setStartTable(int line) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent setName(String name) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addCell(Vec2i position, String content) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addNumber(Vec2i position, double value) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addBoolean(Vec2i position, boolean value) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addDate(Vec2i position, LocalDateTime value) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addBlank(Vec2i position) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent removeCell(Vec2i position) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addLine(Vec2i startPosition, String... contents) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addGrid(Vec2i startPosition, String[]... grid) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addLine(Vec2i startPosition, List<String> contents) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent addListGrid(Vec2i startPosition, List<List<String>> contents) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent removeLine(Vec2i startPosition, int length) {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent enableDictionaryEncoding() {
+		throw readOnly();
+	}
+
+	@Override
+	public WriteableContent enableDictionaryEncoding(int maxDistinct) {
+		throw readOnly();
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("Cached content is read-only");
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * ExcelAndCSVToArray
+ * RowCursor.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Durchläuft die Zeilen eines {@link WriteableContent} der Reihe nach, ohne
+ * eine vollständige Kopie der Tabelle anzulegen. Der Cursor liest direkt aus
+ * der Tabelle, Änderungen während des Durchlaufs sind daher sichtbar.
+ *
+ * <pre>
+ * RowCursor cursor = content.rowCursor();
+ * while (cursor.next())
+ * 	for (int x = cursor.nextColumn(0); x >= 0; x = cursor.nextColumn(x + 1))
+ * 		use(cursor.getY(), x, cursor.getString(x));
+ * </pre>
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public final class RowCursor {
+
+	private final CellStore cells;
+	private final int maxY;
+
+	private int y = -1;
+	private String[] row;
+
+	RowCursor(CellStore cells) {
+		this.cells = cells;
+		this.maxY = cells.getMaxY();
+	}
+
+	/**
+	 * Springt zur nächsten Zeile, die mindestens eine gesetzte Zelle enthält.
+	 *
+	 * @return Ob es eine solche Zeile gibt
+	 */
+	public boolean next() {
+		while (++this.y <= this.maxY) {
+			this.row = this.cells.getRow(this.y);
+			if (this.row != null && firstColumn(this.row, 0) >= 0)
+				return true;
+		}
+		this.row = null;
+		return false;
+	}
+
+	/**
+	 * Springt vorwärts bis zur angegebenen Zeile. Zeilen davor werden
+	 * übersprungen.
+	 *
+	 * @param y Die gesuchte Zeile
+	 * @return Ob die Zeile gesetzte Zellen enthält und der Cursor nun auf ihr
+	 *         steht
+	 */
+	public boolean moveTo(int y) {
+		if (this.y < y - 1)
+			this.y = y - 1;
+		while (this.y < y && this.next())
+			;
+		return this.y == y && this.row != null;
+	}
+
+	/**
+	 * @return Die Zeilennummer der aktuellen Zeile
+	 */
+	public int getY() {
+		return this.y;
+	}
+
+	/**
+	 * @param x Die Spalte
+	 * @return Der Inhalt der Zelle in der aktuellen Zeile als Text oder null,
+	 *         wenn sie leer ist
+	 */
+	public String getString(int x) {
+		if (this.row == null || x < 0 || x >= this.row.length)
+			return null;
+		return this.row[x] == CellStore.TYPED ? this.cells.get(x, this.y) : this.row[x];
+	}
+
+	/**
+	 * @param x Die Spalte
+	 * @return Die Art des Wertes in der aktuellen Zeile oder null, wenn die
+	 *         Zelle leer ist
+	 */
+	public ValueType getType(int x) {
+		if (this.row == null || x < 0 || x >= this.row.length || this.row[x] == null)
+			return null;
+		return this.row[x] == CellStore.TYPED ? this.cells.getType(x, this.y) : ValueType.STRING;
+	}
+
+	/**
+	 * @param x Die Spalte
+	 * @return Der Zahlenwert einer Zelle vom Typ {@link ValueType#NUMERIC},
+	 *         {@link ValueType#BOOLEAN} (1 oder 0) oder {@link ValueType#DATE}
+	 *         (Excel Datumswert), sonst 0
+	 */
+	public double getNumber(int x) {
+		return this.cells.getNumber(x, this.y);
+	}
+
+	/**
+	 * @param from Die erste zu prüfende Spalte
+	 * @return Die erste gesetzte Spalte ab from in der aktuellen Zeile oder -1
+	 */
+	public int nextColumn(int from) {
+		return this.row == null ? -1 : firstColumn(this.row, Math.max(0, from));
+	}
+
+	private static int firstColumn(String[] row, int from) {
+		for (int x = from; x < row.length; x++)
+			if (row[x] != null)
+				return x;
+		return -1;
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * ExcelAndCSVToArray
+ * RowListener.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Empfängt die Zeilen eines gestreamten Imports, ohne dass die gesamte Datei im
+ * Speicher gehalten wird.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+@FunctionalInterface
+public interface RowListener {
+
+	/**
+	 * Wird aufgerufen, bevor die erste Zeile einer Tabelle gelesen wird.
+	 *
+	 * @param index Der Index der Tabelle in der Datei
+	 * @param name  Der Name der Tabelle
+	 */
+	default void startSheet(int index, String name) {
+	}
+
+	/**
+	 * Wird für jede gelesene Zeile aufgerufen.
+	 *
+	 * @param y     Die Zeilennummer
+	 * @param cells Die Inhalte der Zeile nach Spalten, leere Zellen sind null.
+	 *              Das Array gehört dem Empfänger.
+	 */
+	void row(int y, String[] cells);
+
+	/**
+	 * Wird aufgerufen, nachdem die letzte Zeile einer Tabelle gelesen wurde.
+	 *
+	 * @param index Der Index der Tabelle in der Datei
+	 * @param name  Der Name der Tabelle
+	 */
+	default void endSheet(int index, String name) {
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * ExcelAndCSVToArray
+ * RowProjection.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Wendet die {@link ImportOptions} auf die Zeilen einer Tabelle an und gibt
+ * nur die übernommenen Spalten und Zeilen weiter. Die Leser fragen über
+ * {@link #wants(int, int)} vorab, ob eine Zelle überhaupt gebraucht wird.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class RowProjection implements TypedRowListener {
+
+	private final ImportOptions options;
+	private final RowListener target;
+	private final ImportOptions.RowFilter filter;
+	private final int header, from, to;
+
+	private int[] columns;
+	private boolean[] kept;
+	private boolean resolved;
+
+	private int row;
+	private boolean done;
+
+	/**
+	 * @param options Die anzuwendenden Optionen
+	 * @param target  Empfängt die übernommenen Zeilen, kann null sein, wenn nur
+	 *                die Entscheidungen der Projektion genutzt werden
+	 */
+	RowProjection(ImportOptions options, RowListener target) {
+		this.options = options;
+		this.target = target;
+		this.header = options.getHeaderRow();
+		this.from = Math.max(options.getFromRow(), this.header + 1);
+		this.to = options.getToRow();
+		this.filter = options.getFilter();
+		if (!options.needsHeader())
+			this.setColumns(options.resolve(null));
+	}
+
+	@Override
+	public void startSheet(int index, String name) {
+		this.target.startSheet(index, name);
+	}
+
+	@Override
+	public void row(int y, String[] cells) {
+		this.row(y, cells, null, null);
+	}
+
+	@Override
+	public void row(int y, String[] cells, ValueType[] types, double[] values) {
+		if (this.isPast(y)) {
+			this.done = true;
+			return;
+		}
+		if (!this.wantsRow(y))
+			return;
+		if (y == this.header)
+			this.resolve(cells);
+
+		String[] projected = this.project(cells);
+		if (!this.accept(y, projected))
+			return;
+		if (types == null || this.columns == null) {
+			TypedRowListener.forward(this.target, this.row++, projected, types, values);
+			return;
+		}
+
+		ValueType[] projectedTypes = new ValueType[this.columns.length];
+		double[] projectedValues = new double[this.columns.length];
+		for (int x = 0; x < this.columns.length; x++) {
+			if (this.columns[x] < types.length) {
+				projectedTypes[x] = types[this.columns[x]];
+				projectedValues[x] = values[this.columns[x]];
+			}
+		}
+		TypedRowListener.forward(this.target, this.row++, projected, projectedTypes, projectedValues);
+	}
+
+	@Override
+	public void endSheet(int index, String name) {
+		this.target.endSheet(index, name);
+	}
+
+	/**
+	 * @return Ob alle benötigten Zeilen gelesen wurden
+	 */
+	boolean isDone() {
+		return this.done;
+	}
+
+	/**
+	 * @param y Die Zeile in der Datei
+	 * @return Ob die Zeile und alle folgenden nicht mehr übernommen werden
+	 */
+	boolean isPast(int y) {
+		return y >= this.to && y > this.header;
+	}
+
+	/**
+	 * @param y Die Zeile in der Datei
+	 * @return Ob die Zeile die Kopfzeile ist oder im Zeilenbereich liegt
+	 */
+	boolean wantsRow(int y) {
+		return y == this.header || y >= this.from && y < this.to;
+	}
+
+	/**
+	 * @param y Die Zeile in der Datei
+	 * @param x Die Spalte in der Datei
+	 * @return Ob die Zelle gelesen werden muss
+	 */
+	boolean wants(int y, int x) {
+		if (!this.wantsRow(y))
+			return false;
+		return !this.resolved || this.kept == null || x < this.kept.length && this.kept[x];
+	}
+
+	/**
+	 * @param y Die Zeile in der Datei
+	 * @return Ob über die Zeile noch der Filter entscheidet
+	 */
+	boolean filters(int y) {
+		return this.filter != null && y != this.header;
+	}
+
+	/**
+	 * @param y     Die Zeile in der Datei
+	 * @param cells Die übernommenen Spalten der Zeile
+	 * @return Ob der Filter die Zeile übernimmt
+	 */
+	boolean accept(int y, String[] cells) {
+		return !this.filters(y) || this.filter.test(y, cells);
+	}
+
+	/**
+	 * Sucht die ausgewählten Spalten in der Kopfzeile.
+	 *
+	 * @param header Die Inhalte der Kopfzeile
+	 */
+	void resolve(String[] header) {
+		if (!this.resolved)
+			this.setColumns(this.options.resolve(header));
+	}
+
+	/**
+	 * @return Die übernommenen Spalten der Datei in der Reihenfolge der Ausgabe
+	 *         oder null für alle Spalten
+	 */
+	int[] getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return Die Nummer der nächsten übernommenen Zeile
+	 */
+	int getRow() {
+		return this.row;
+	}
+
+	/**
+	 * Zählt eine außerhalb dieser Klasse übernommene Zeile.
+	 */
+	void nextRow() {
+		this.row++;
+	}
+
+	/**
+	 * @param cells Die Inhalte einer Zeile nach Spalten der Datei
+	 * @return Die Inhalte der übernommenen Spalten
+	 */
+	String[] project(String[] cells) {
+		if (this.columns == null)
+			return cells;
+		String[] projected = new String[this.columns.length];
+		for (int x = 0; x < projected.length; x++)
+			if (this.columns[x] < cells.length)
+				projected[x] = cells[this.columns[x]];
+		return projected;
+	}
+
+	private void setColumns(int[] columns) {
+		this.columns = columns;
+		this.resolved = true;
+		if (columns == null)
+			return;
+
+		int width = 0;
+		for (int column : columns)
+			width = Math.max(width, column + 1);
+		this.kept = new boolean[width];
+		for (int column : columns)
+			this.kept[column] = true;
+	}
+
+}
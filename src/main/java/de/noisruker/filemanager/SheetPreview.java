@@ -0,0 +1,78 @@
+/*
+ * ExcelAndCSVToArray
+ * SheetPreview.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Die Vorschau einer Tabelle: ihr Name, die ersten Zeilen und ihre ungefähre
+ * Ausdehnung. Wird von {@link CSVImporter#peekCSV(String, char, int)},
+ * {@link ExcelImporter#peekXLS(String, int)} und
+ * {@link ExcelImporter#peekXLSX(String, int)} erstellt, ohne die ganze Datei zu
+ * lesen.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+public final class SheetPreview {
+
+	private final String name;
+	private final WriteableContent content;
+	private final Vec2i dimension;
+
+	SheetPreview(String name, WriteableContent content, Vec2i dimension) {
+		this.name = name;
+		this.content = content;
+
+		// Manche Programme schreiben keine oder eine zu kleine Ausdehnung
+		Vec2i read = content.getMaxLength();
+		this.dimension = dimension == null ? null
+				: new Vec2i(Math.max(dimension.x, read.x), Math.max(dimension.y, read.y));
+	}
+
+	/**
+	 * @return Der Name der Tabelle
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return Die ersten Zeilen der Tabelle
+	 */
+	public WriteableContent getContent() {
+		return this.content;
+	}
+
+	/**
+	 * Die Werte stammen aus den Metadaten der Datei oder sind bei CSV Dateien aus
+	 * der Größe der Datei geschätzt und können daher ungenau sein.
+	 *
+	 * @return Die größte Spalte (x) und Zeile (y) oder null, wenn sie unbekannt
+	 *         ist
+	 */
+	public Vec2i getDimension() {
+		return this.dimension == null ? null : new Vec2i(this.dimension);
+	}
+
+	@Override
+	public String toString() {
+		return "SheetPreview[" + this.name + ", " + this.dimension + "]";
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * ExcelAndCSVToArray
+ * StringDictionary.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Das Wörterbuch einer Spalte. Gleiche Texte werden auf eine gemeinsame
+ * Instanz abgebildet, sodass jede weitere Zelle mit diesem Text nur noch eine
+ * Referenz kostet. Der Code eines Textes ist seine Position in
+ * {@link #getValues()}.
+ * <p>
+ * Überschreitet die Spalte die erlaubte Anzahl verschiedener Texte, lohnt sich
+ * das Wörterbuch nicht. Es wird dann verworfen und alle weiteren Texte werden
+ * unverändert gespeichert.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+final class StringDictionary {
+
+	private final int limit;
+	private Map<String, String> pool = new HashMap<>();
+	private List<String> values = new ArrayList<>();
+
+	/**
+	 * @param limit Die maximale Anzahl verschiedener Texte
+	 */
+	StringDictionary(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * @param value Der zu speichernde Text
+	 * @return Die gemeinsame Instanz des Textes oder der Text selbst, wenn das
+	 *         Wörterbuch verworfen wurde
+	 */
+	String intern(String value) {
+		if (this.pool == null)
+			return value;
+
+		String pooled = this.pool.get(value);
+		if (pooled != null)
+			return pooled;
+
+		if (this.values.size() >= this.limit) {
+			this.pool = null;
+			this.values = null;
+			return value;
+		}
+
+		this.pool.put(value, value);
+		this.values.add(value);
+		return value;
+	}
+
+	/**
+	 * @return Ob das Wörterbuch noch aktiv ist
+	 */
+	boolean isActive() {
+		return this.pool != null;
+	}
+
+	/**
+	 * @return Die Texte des Wörterbuchs in der Reihenfolge ihres ersten
+	 *         Auftretens oder eine leere Liste, wenn es verworfen wurde
+	 */
+	List<String> getValues() {
+		return this.values == null ? Collections.emptyList() : Collections.unmodifiableList(this.values);
+	}
+
+}
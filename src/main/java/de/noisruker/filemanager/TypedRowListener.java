@@ -0,0 +1,57 @@
+/*
+ * ExcelAndCSVToArray
+ * TypedRowListener.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Ein {@link RowListener}, der zusätzlich die Art der Werte einer Zeile
+ * empfängt. Leser, die Zahlen, Wahrheitswerte und Datumsangaben erkennen,
+ * geben diese so weiter, damit sie wie bei den Importern mit vollständigem
+ * Workbook typisiert gespeichert werden können.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+interface TypedRowListener extends RowListener {
+
+	/**
+	 * Wird für jede gelesene Zeile statt {@link #row(int, String[])} aufgerufen.
+	 *
+	 * @param y      Die Zeilennummer
+	 * @param cells  Die Inhalte der Zeile als Text nach Spalten, leere Zellen
+	 *               sind null
+	 * @param types  Die Art der Werte nach Spalten, null für Texte. Das Array ist
+	 *               null, wenn die Zeile nur Texte enthält.
+	 * @param values Die Zahlenwerte der typisierten Zellen wie in
+	 *               {@link CellStore}, Datumsangaben als Excel Datumswert
+	 */
+	void row(int y, String[] cells, ValueType[] types, double[] values);
+
+	/**
+	 * Gibt eine Zeile an den Empfänger weiter, typisiert, wenn er das
+	 * unterstützt.
+	 */
+	static void forward(RowListener listener, int y, String[] cells, ValueType[] types, double[] values) {
+		if (types != null && listener instanceof TypedRowListener)
+			((TypedRowListener) listener).row(y, cells, types, values);
+		else
+			listener.row(y, cells);
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ * ExcelAndCSVToArray
+ * ValueType.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+/**
+ * Die Art des Wertes einer Zelle in einem {@link WriteableContent}.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public enum ValueType {
+
+	/**
+	 * Ein Text
+	 */
+	STRING,
+
+	/**
+	 * Eine Zahl
+	 */
+	NUMERIC,
+
+	/**
+	 * Ein Wahrheitswert
+	 */
+	BOOLEAN,
+
+	/**
+	 * Ein Datum mit Uhrzeit
+	 */
+	DATE,
+
+	/**
+	 * Eine vorhandene, aber leere Zelle
+	 */
+	BLANK;
+
+	private static final ValueType[] VALUES = values();
+
+	static ValueType of(int ordinal) {
+		return VALUES[ordinal];
+	}
+
+}
@@ -19,26 +19,33 @@
 
 package de.noisruker.filemanager;
 
+import de.noisruker.filemanager.metrics.Phase;
 import de.noisruker.filemanager.utils.CellStyles;
 import de.noisruker.filemanager.utils.Config;
-import org.apache.poi.hssf.usermodel.HSSFCellStyle;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.logging.Level;
 
 import static de.noisruker.logger.Logger.LOGGER;
+import static org.apache.poi.ss.usermodel.CellType.BOOLEAN;
+import static org.apache.poi.ss.usermodel.CellType.NUMERIC;
 import static org.apache.poi.ss.usermodel.CellType.STRING;
 
 /**
@@ -49,19 +56,44 @@ import static org.apache.poi.ss.usermodel.CellType.STRING;
  */
 public class WriteableContent {
 
-	private HashMap<Vec2i, String> lines = new HashMap<Vec2i, String>();
+	/**
+	 * Die Anzahl verschiedener Texte, bis zu der eine Spalte beim Import als
+	 * Wörterbuch gespeichert wird
+	 */
+	public static final int DEFAULT_DICTIONARY_LIMIT = 1 << 12;
+
+	/**
+	 * Die Anzahl an Stellen, die Excel im Standardformat für Zahlen höchstens
+	 * anzeigt
+	 */
+	private static final int GENERAL_NUMBER_LENGTH = 11;
+
+	private final CellStore lines;
 	private String name;
 
 	private int startTable;
 
 	public WriteableContent() {
-		this.name = "";
+		this("");
 	}
 
 	public WriteableContent(String name) {
+		this.lines = new CellStore();
 		this.name = name;
 	}
 
+	/**
+	 * Erstellt eine Ansicht, die sich die Zellen mit dem gegebenen Inhalt
+	 * teilt.
+	 *
+	 * @param source Der Inhalt, dessen Zellen übernommen werden
+	 */
+	WriteableContent(WriteableContent source) {
+		this.lines = source.lines;
+		this.name = source.name;
+		this.startTable = source.startTable;
+	}
+
 	/**
 	 * @param line In welcher Zeile gestartet werden soll
 	 */
@@ -69,6 +101,13 @@ public class WriteableContent {
 		this.startTable = line;
 	}
 
+	/**
+	 * @return Die Zeile, in der die Tabelle startet
+	 */
+	public int getStartTable() {
+		return this.startTable;
+	}
+
 	public String getName() {
 		return this.name;
 	}
@@ -85,7 +124,55 @@ public class WriteableContent {
 	 * @return Dieses Element
 	 */
 	public WriteableContent addCell(Vec2i position, String content) {
-		lines.put(position, content);
+		lines.put(position.x, position.y, content);
+		return this;
+	}
+
+	/**
+	 * Schreibt eine Zahl in eine Tabellenzelle. Die Zahl wird ohne Umwandlung in
+	 * Text gespeichert und als Zahl exportiert.
+	 * @param position Die Position der Tabellenzelle
+	 * @param value Die Zahl
+	 * @return Dieses Element
+	 */
+	public WriteableContent addNumber(Vec2i position, double value) {
+		lines.putTyped(position.x, position.y, ValueType.NUMERIC, value);
+		return this;
+	}
+
+	/**
+	 * Schreibt einen Wahrheitswert in eine Tabellenzelle
+	 * @param position Die Position der Tabellenzelle
+	 * @param value Der Wahrheitswert
+	 * @return Dieses Element
+	 */
+	public WriteableContent addBoolean(Vec2i position, boolean value) {
+		lines.putTyped(position.x, position.y, ValueType.BOOLEAN, value ? 1 : 0);
+		return this;
+	}
+
+	/**
+	 * Schreibt ein Datum in eine Tabellenzelle. Gespeichert wird der Excel
+	 * Datumswert, exportiert wird das Datum mit Datumsformat.
+	 * @param position Die Position der Tabellenzelle
+	 * @param value Das Datum
+	 * @return Dieses Element
+	 */
+	public WriteableContent addDate(Vec2i position, LocalDateTime value) {
+		if (value == null)
+			lines.remove(position.x, position.y);
+		else
+			lines.putTyped(position.x, position.y, ValueType.DATE, DateUtil.getExcelDate(value));
+		return this;
+	}
+
+	/**
+	 * Setzt eine vorhandene, aber leere Tabellenzelle
+	 * @param position Die Position der Tabellenzelle
+	 * @return Dieses Element
+	 */
+	public WriteableContent addBlank(Vec2i position) {
+		lines.putTyped(position.x, position.y, ValueType.BLANK, 0);
 		return this;
 	}
 
@@ -95,7 +182,7 @@ public class WriteableContent {
 	 * @return Dieses Element
 	 */
 	public WriteableContent removeCell(Vec2i position) {
-		lines.remove(position);
+		lines.remove(position.x, position.y);
 		return this;
 	}
 
@@ -107,7 +194,7 @@ public class WriteableContent {
 	 */
 	public WriteableContent addLine(Vec2i startPosition, String... contents) {
 		for (int x = startPosition.x, i = 0; i < contents.length; x++, i++) {
-			lines.put(new Vec2i(x, startPosition.y), contents[i]);
+			lines.put(x, startPosition.y, contents[i]);
 		}
 		return this;
 	}
@@ -125,6 +212,24 @@ public class WriteableContent {
 		return this;
 	}
 
+	/**
+	 * Fügt eine Zeile ab der ersten Spalte ein. Zellen mit Typ werden wie mit
+	 * {@link #addNumber(Vec2i, double)} usw. typisiert gespeichert.
+	 *
+	 * @param y      Die Zeile
+	 * @param cells  Die Texte der Zellen
+	 * @param types  Die Art der Werte, null für Texte
+	 * @param values Die Zahlenwerte der typisierten Zellen
+	 */
+	void addLine(int y, String[] cells, ValueType[] types, double[] values) {
+		for (int x = 0; x < cells.length; x++) {
+			if (types != null && types[x] != null)
+				lines.putTyped(x, y, types[x], values[x]);
+			else
+				lines.put(x, y, cells[x]);
+		}
+	}
+
 	/**
 	 * Fügt eine Zeile an der Startposition ein. Dabei ist die gesetzte Position die Zelle ganz Links in der Liste und alle weiteren Elemente werden rechts davon eingefügt.
 	 * @param startPosition Die Startposition zum Einfügen.
@@ -133,7 +238,7 @@ public class WriteableContent {
 	 */
 	public WriteableContent addLine(Vec2i startPosition, List<String> contents) {
 		for (int x = startPosition.x, i = 0; i < contents.size(); x++, i++) {
-			lines.put(new Vec2i(x, startPosition.y), contents.get(i));
+			lines.put(x, startPosition.y, contents.get(i));
 		}
 		return this;
 	}
@@ -153,7 +258,7 @@ public class WriteableContent {
 
 	public WriteableContent removeLine(Vec2i startPosition, int length) {
 		for (int x = startPosition.x, i = 0; i < length; x++, i++) {
-			lines.remove(new Vec2i(x, startPosition.y));
+			lines.remove(x, startPosition.y);
 		}
 		return this;
 	}
@@ -161,109 +266,166 @@ public class WriteableContent {
 	public String[][] getReverseGrid() {
 		Vec2i maxLength = this.getMaxLength();
 		String[][] cells = new String[maxLength.x + 1][maxLength.y + 1];
-		for (Entry<Vec2i, String> cell : lines.entrySet()) {
-			cells[cell.getKey().x][cell.getKey().y] = cell.getValue();
-		}
+		lines.forEach((x, y, value) -> cells[x][y] = value);
 		return cells;
 	}
 
 	public String[][] getGrid() {
 		Vec2i maxLength = this.getMaxLength();
 		String[][] cells = new String[maxLength.y + 1][maxLength.x + 1];
-		for (Entry<Vec2i, String> cell : lines.entrySet()) {
-			cells[cell.getKey().y][cell.getKey().x] = cell.getValue();
-		}
+		lines.forEach((x, y, value) -> cells[y][x] = value);
 		return cells;
 	}
 
+	/**
+	 * Gibt den Inhalt einer Zelle als Text zurück. Zahlen und Wahrheitswerte
+	 * werden dabei umgewandelt, Datumsangaben im ISO-8601 Format ausgegeben.
+	 * @param position Die Position der Tabellenzelle
+	 * @return Der Inhalt oder null, wenn die Zelle leer ist
+	 */
 	public String getStringAt(Vec2i position) {
-		return this.lines.get(position);
+		return this.lines.get(position.x, position.y);
 	}
 
-	public void writeXLS(HSSFWorkbook workbook, HSSFSheet sheet, int startingLineY) {
-		Vec2i maxLength = this.getMaxLength();
-		String[][] cells = this.getReverseGrid();
-
-		int rownumber = startingLineY;
+	/**
+	 * @param position Die Position der Tabellenzelle
+	 * @return Die Art des Wertes oder null, wenn die Zelle leer ist
+	 */
+	public ValueType getTypeAt(Vec2i position) {
+		return this.lines.getType(position.x, position.y);
+	}
 
-		Row row;
+	/**
+	 * @param position Die Position der Tabellenzelle
+	 * @return Die Zahl in der Zelle
+	 * @throws IllegalStateException Wenn die Zelle keine Zahl enthält
+	 */
+	public double getNumberAt(Vec2i position) {
+		this.checkType(position, ValueType.NUMERIC);
+		return this.lines.getNumber(position.x, position.y);
+	}
 
-		Cell cell;
+	/**
+	 * @param position Die Position der Tabellenzelle
+	 * @return Der Wahrheitswert in der Zelle
+	 * @throws IllegalStateException Wenn die Zelle keinen Wahrheitswert enthält
+	 */
+	public boolean getBooleanAt(Vec2i position) {
+		this.checkType(position, ValueType.BOOLEAN);
+		return this.lines.getNumber(position.x, position.y) != 0;
+	}
 
-		for (int y = 0; y < this.startTable; y++) {
-			HSSFCellStyle style = CellStyles.header(workbook);
-			row = sheet.createRow(y);
-			for (int x = 0; x <= maxLength.x; x++) {
-				cell = row.createCell(x, STRING);
-				cell.setCellValue(cells[x][0] == null ? "" : cells[x][y]);
-				cell.setCellStyle(style);
-			}
+	/**
+	 * @param position Die Position der Tabellenzelle
+	 * @return Das Datum in der Zelle
+	 * @throws IllegalStateException Wenn die Zelle kein Datum enthält
+	 */
+	public LocalDateTime getDateAt(Vec2i position) {
+		this.checkType(position, ValueType.DATE);
+		return DateUtil.getLocalDateTime(this.lines.getNumber(position.x, position.y));
+	}
 
-		}
+	private void checkType(Vec2i position, ValueType expected) {
+		ValueType type = this.getTypeAt(position);
+		if (type != expected)
+			throw new IllegalStateException("Cell " + position + " is of type " + type + ", not " + expected);
+	}
 
-		HSSFCellStyle style = CellStyles.title(workbook);
-		row = sheet.createRow(this.startTable);
-		for (int x = 0; x <= maxLength.x; x++) {
-			cell = row.createCell(x, STRING);
-			cell.setCellValue(cells[x][this.startTable] == null ? "" : cells[x][this.startTable]);
-			cell.setCellStyle(style);
+	/**
+	 * Schaltet die Wörterbuch-Kodierung mit {@link #DEFAULT_DICTIONARY_LIMIT}
+	 * ein.
+	 *
+	 * @return Dieses Element
+	 * @see #enableDictionaryEncoding(int)
+	 */
+	public WriteableContent enableDictionaryEncoding() {
+		return this.enableDictionaryEncoding(DEFAULT_DICTIONARY_LIMIT);
+	}
 
-		}
+	/**
+	 * Speichert wiederholte Texte einer Spalte nur einmal. Jede Spalte führt
+	 * dafür ein eigenes Wörterbuch, das verworfen wird, sobald die Spalte mehr
+	 * als maxDistinct verschiedene Texte enthält. Wirkt nur auf Texte, die
+	 * danach gesetzt werden. Die Importer schalten die Kodierung selbst ein.
+	 *
+	 * @param maxDistinct Die maximale Anzahl verschiedener Texte pro Spalte
+	 * @return Dieses Element
+	 */
+	public WriteableContent enableDictionaryEncoding(int maxDistinct) {
+		this.lines.enableDictionaries(maxDistinct);
+		return this;
+	}
 
-		style = CellStyles.normal2(workbook);
-		row = sheet.createRow(this.startTable + 1);
-		for (int x = 0; x <= maxLength.x; x++) {
-			cell = row.createCell(x, STRING);
-			cell.setCellValue("");
-			cell.setCellStyle(style);
-		}
+	/**
+	 * @param column Die Spalte
+	 * @return Ob die Texte der Spalte über ein Wörterbuch gespeichert werden
+	 */
+	public boolean isDictionaryEncoded(int column) {
+		return this.lines.getDictionary(column) != null;
+	}
 
-		for (int y = this.startTable + 1; y <= maxLength.y; y++) {
-			if (y % 2 == 1) {
-				style = CellStyles.normal2(workbook);
-				row = sheet.createRow(rownumber + y);
-				for (int x = 0; x <= maxLength.x; x++) {
-					cell = row.createCell(x, STRING);
-					cell.setCellValue(cells[x][y] == null ? "" : cells[x][y]);
-					cell.setCellStyle(style);
-				}
-			} else {
-				style = CellStyles.normal1(workbook);
-				row = sheet.createRow(rownumber + y);
-				for (int x = 0; x <= maxLength.x; x++) {
-					cell = row.createCell(x, STRING);
-					cell.setCellValue(cells[x][y] == null ? "" : cells[x][y]);
-					cell.setCellStyle(style);
-				}
-			}
-		}
+	/**
+	 * @param column Die Spalte
+	 * @return Die verschiedenen Texte der Spalte in der Reihenfolge ihres
+	 *         ersten Auftretens oder eine leere Liste, wenn die Spalte nicht
+	 *         kodiert ist
+	 */
+	public List<String> getDictionary(int column) {
+		StringDictionary dictionary = this.lines.getDictionary(column);
+		return dictionary == null ? Collections.emptyList() : dictionary.getValues();
+	}
 
-		style = CellStyles.up(workbook);
-		row = sheet.createRow(maxLength.y + 1 + rownumber);
-		for (int x = 0; x <= maxLength.x; x++) {
-			cell = row.createCell(x, STRING);
-			cell.setCellValue("");
-			cell.setCellStyle(style);
-		}
+	/**
+	 * @return Ob alle Texte dieses Inhalts aus den Wörterbüchern stammen, die
+	 *         Anzahl verschiedener Texte also begrenzt ist
+	 */
+	boolean isFullyDictionaryEncoded() {
+		return this.lines.isFullyPooled();
+	}
 
-		if (Config.hasHeaderOutput)
-			sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, maxLength.x));
+	/**
+	 * @return Der Speicher der Zellen, für Im- und Exporte im Paket
+	 */
+	CellStore cells() {
+		return this.lines;
+	}
 
-		for (int y = 0; y <= maxLength.y; y++)
-			sheet.autoSizeColumn(y);
+	/**
+	 * Erstellt einen Cursor, der die belegten Zeilen der Reihe nach durchläuft.
+	 * Im Gegensatz zu {@link #getGrid()} wird dabei keine Kopie der Tabelle
+	 * angelegt.
+	 *
+	 * @return Ein Cursor vor der ersten Zeile
+	 */
+	public RowCursor rowCursor() {
+		return new RowCursor(this.lines);
+	}
 
+	public void writeXLS(HSSFWorkbook workbook, HSSFSheet sheet, int startingLineY) {
+		this.writeSheet(workbook, sheet, startingLineY);
 	}
 
+	/**
+	 * Schreibt diesen Inhalt im alten Format: Jede Zelle endet mit ';', Felder
+	 * werden nicht maskiert und Zeilen enden mit dem Zeilenumbruch der
+	 * Plattform. Schreibfehler werden nur protokolliert.
+	 *
+	 * @param writer Der Writer, in den geschrieben wird
+	 * @deprecated Die so geschriebenen Dateien lassen sich nicht verlustfrei
+	 *             wieder einlesen. Stattdessen
+	 *             {@link CSVExporter#writeCSV(String, char, java.nio.charset.Charset, WriteableContent...)}
+	 *             verwenden, das RFC 4180 schreibt und Fehler weitergibt.
+	 */
+	@Deprecated
 	public void writeCSV(BufferedWriter writer) {
 		Vec2i maxLength = this.getMaxLength();
-		String[][] cells = this.getReverseGrid();
+		RowCursor cursor = this.rowCursor();
 
 		for (int y = 0; y <= maxLength.y; y++) {
 			try {
-				for (int x = 0; x <= maxLength.x; x++) {
-					if (cells[x][y] != null)
-						writer.append(cells[x][y] + ";");
-
+				if (cursor.moveTo(y)) {
+					for (int x = cursor.nextColumn(0); x >= 0; x = cursor.nextColumn(x + 1))
+						writer.append(cursor.getString(x)).append(';');
 				}
 				writer.newLine();
 			} catch (IOException e) {
@@ -272,87 +434,166 @@ public class WriteableContent {
 		}
 	}
 
+	/**
+	 * Schreibt diesen Inhalt als CSV. Lücken innerhalb einer Zeile werden als
+	 * leere Felder geschrieben, damit die Spalten erhalten bleiben.
+	 *
+	 * @param writer Der Writer, in den geschrieben wird
+	 */
+	void writeCSV(CSVChannelWriter writer) throws IOException {
+		this.writeCSV(writer, 0, this.lines.getMaxY() + 1);
+	}
+
+	/**
+	 * Schreibt die Zeilen from bis ausschließlich to als CSV.
+	 *
+	 * @param writer Der Writer, in den geschrieben wird
+	 * @param from   Die erste Zeile
+	 * @param to     Die Zeile hinter der letzten Zeile
+	 */
+	void writeCSV(CSVChannelWriter writer, int from, int to) throws IOException {
+		RowCursor cursor = this.rowCursor();
+
+		for (int y = Math.max(0, from); y < to; y++) {
+			if (cursor.moveTo(y)) {
+				int last = -1;
+				for (int x = cursor.nextColumn(0); x >= 0; x = cursor.nextColumn(x + 1)) {
+					while (++last < x)
+						writer.field(null);
+					writer.field(cursor.getString(x));
+				}
+			}
+			writer.endRecord();
+		}
+	}
+
 	public void writeXLSX(XSSFWorkbook workbook, XSSFSheet sheet, int startingLineY) {
+		this.writeSheet(workbook, sheet, startingLineY);
+	}
+
+	/**
+	 * Schreibt diesen Inhalt in einen gestreamten .xlsx Sheet. Ist
+	 * {@link Config#exactColumnWidths} gesetzt, muss der Sheet die
+	 * Spaltenbreiten verfolgen, siehe
+	 * {@link SXSSFSheet#trackAllColumnsForAutoSizing()}.
+	 *
+	 * @param workbook      Das gestreamte Workbook
+	 * @param sheet         Der Sheet, in den geschrieben wird
+	 * @param startingLineY Die Zeile, ab der die Daten eingefügt werden
+	 */
+	public void writeXLSX(SXSSFWorkbook workbook, SXSSFSheet sheet, int startingLineY) {
+		this.writeSheet(workbook, sheet, startingLineY);
+	}
+
+	private void writeSheet(Workbook workbook, Sheet sheet, int startingLineY) {
 		Vec2i maxLength = this.getMaxLength();
-		String[][] cells = this.getReverseGrid();
+		RowCursor cells = this.rowCursor();
 
 		int rownumber = startingLineY;
 
-		Row row;
+		String operation = workbook instanceof HSSFWorkbook ? "writeXLS"
+				: workbook instanceof SXSSFWorkbook ? "writeXLSXStreamed" : "writeXLSX";
 
-		Cell cell;
+		PhaseTimer timer = PhaseTimer.start(operation, Phase.STYLE, this.name);
+		CellStyle normal1 = CellStyles.normal1(workbook);
+		CellStyle normal2 = CellStyles.normal2(workbook);
+		CellStyle date1 = CellStyles.get(workbook, CellStyles.Kind.NORMAL1_DATE);
+		CellStyle date2 = CellStyles.get(workbook, CellStyles.Kind.NORMAL2_DATE);
+		CellStyle header = this.startTable > 0 ? CellStyles.header(workbook) : null;
+		CellStyle title = CellStyles.title(workbook);
+		CellStyle up = CellStyles.up(workbook);
+		timer.end();
 
-		for (int y = 0; y < this.startTable; y++) {
-			XSSFCellStyle style = CellStyles.header(workbook);
-			row = sheet.createRow(y);
-			for (int x = 0; x <= maxLength.x; x++) {
-				cell = row.createCell(x, STRING);
-				cell.setCellValue(cells[x][0] == null ? "" : cells[x][y]);
-				cell.setCellStyle(style);
-			}
-
-		}
+		timer = PhaseTimer.start(operation, Phase.MATERIALIZE, this.name);
 
-		XSSFCellStyle style = CellStyles.title(workbook);
-		row = sheet.createRow(this.startTable);
-		for (int x = 0; x <= maxLength.x; x++) {
-			cell = row.createCell(x, STRING);
-			cell.setCellValue(cells[x][this.startTable] == null ? "" : cells[x][this.startTable]);
-			cell.setCellStyle(style);
+		ColumnWidths widths = Config.exactColumnWidths ? null : new ColumnWidths(workbook, maxLength.x + 1);
+		int stride = ColumnWidths.stride(maxLength.y + 1);
 
+		// Die zusammengefasste erste Zeile zählt wie bei autoSizeColumn nicht mit
+		for (int y = 0; y < this.startTable; y++) {
+			writeRow(sheet.createRow(y), cells, y, maxLength.x, header, header,
+					y == 0 && Config.hasHeaderOutput ? null : widths);
 		}
 
-		style = CellStyles.normal2(workbook);
-		row = sheet.createRow(this.startTable + 1);
-		for (int x = 0; x <= maxLength.x; x++) {
-			cell = row.createCell(x, STRING);
-			cell.setCellValue("");
-			cell.setCellStyle(style);
-		}
+		writeRow(sheet.createRow(this.startTable), cells, this.startTable, maxLength.x, title, title,
+				this.startTable == 0 && Config.hasHeaderOutput ? null : widths);
+
+		writeRow(sheet.createRow(this.startTable + 1), null, 0, maxLength.x, normal2, date2, null);
 
 		for (int y = this.startTable + 1; y <= maxLength.y; y++) {
-			if (y % 2 == 1) {
-				style = CellStyles.normal2(workbook);
-				row = sheet.createRow(rownumber + y);
-				for (int x = 0; x <= maxLength.x; x++) {
-					cell = row.createCell(x, STRING);
-					cell.setCellValue(cells[x][y] == null ? "" : cells[x][y]);
-					cell.setCellStyle(style);
-				}
-			} else {
-				style = CellStyles.normal1(workbook);
-				row = sheet.createRow(rownumber + y);
-				for (int x = 0; x <= maxLength.x; x++) {
-					cell = row.createCell(x, STRING);
-					cell.setCellValue(cells[x][y] == null ? "" : cells[x][y]);
-					cell.setCellStyle(style);
-				}
-			}
+			ColumnWidths measured = y % stride == 0 ? widths : null;
+			if (y % 2 == 1)
+				writeRow(sheet.createRow(rownumber + y), cells, y, maxLength.x, normal2, date2, measured);
+			else
+				writeRow(sheet.createRow(rownumber + y), cells, y, maxLength.x, normal1, date1, measured);
 		}
 
-		style = CellStyles.up(workbook);
-		row = sheet.createRow(maxLength.y + 1 + rownumber);
-		for (int x = 0; x <= maxLength.x; x++) {
-			cell = row.createCell(x, STRING);
-			cell.setCellValue("");
-			cell.setCellStyle(style);
-		}
+		writeRow(sheet.createRow(maxLength.y + 1 + rownumber), null, 0, maxLength.x, up, up, null);
 
 		if (Config.hasHeaderOutput)
 			sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, maxLength.x));
 
-		for (int y = 0; y <= maxLength.y; y++)
-			sheet.autoSizeColumn(y);
+		timer.rows(maxLength.y + 1).cells(this.lines.size()).end();
+
+		timer = PhaseTimer.start(operation, Phase.AUTOSIZE, this.name);
+		if (widths != null) {
+			widths.apply(sheet);
+		} else {
+			for (int x = 0; x <= maxLength.x; x++)
+				sheet.autoSizeColumn(x);
+		}
+		timer.end();
 
 	}
 
-	private Vec2i getMaxLength() {
-		Vec2i maxLength = new Vec2i();
-		for (Entry<Vec2i, String> cell : lines.entrySet()) {
-			maxLength.x = cell.getKey().x > maxLength.x ? cell.getKey().x : maxLength.x;
-			maxLength.y = cell.getKey().y > maxLength.y ? cell.getKey().y : maxLength.y;
+	/**
+	 * @param widths Nimmt die Länge der geschriebenen Werte auf oder null, wenn
+	 *               die Zeile nicht gemessen wird
+	 */
+	private static void writeRow(Row row, RowCursor cells, int y, int maxX, CellStyle style, CellStyle dateStyle,
+			ColumnWidths widths) {
+		boolean filled = cells != null && cells.moveTo(y);
+		Cell cell;
+		for (int x = 0; x <= maxX; x++) {
+			ValueType type = filled ? cells.getType(x) : null;
+			int length;
+
+			if (type == ValueType.NUMERIC) {
+				cell = row.createCell(x, NUMERIC);
+				cell.setCellValue(cells.getNumber(x));
+				length = Math.min(GENERAL_NUMBER_LENGTH, Double.toString(cells.getNumber(x)).length());
+			} else if (type == ValueType.BOOLEAN) {
+				cell = row.createCell(x, BOOLEAN);
+				cell.setCellValue(cells.getNumber(x) != 0);
+				length = 5;
+			} else if (type == ValueType.DATE) {
+				cell = row.createCell(x, NUMERIC);
+				cell.setCellValue(DateUtil.getLocalDateTime(cells.getNumber(x)));
+				cell.setCellStyle(dateStyle);
+				if (widths != null)
+					widths.measure(x, CellStyles.DATE_FORMAT.length(), dateStyle);
+				continue;
+			} else {
+				String value = type == null ? null : cells.getString(x);
+				cell = row.createCell(x, STRING);
+				cell.setCellValue(value == null ? "" : value);
+				length = value == null ? 0 : ColumnWidths.length(value);
+			}
+			cell.setCellStyle(style);
+			if (widths != null)
+				widths.measure(x, length, style);
 		}
-		return maxLength;
+	}
+
+	public Vec2i getMaxLength() {
+		return new Vec2i(Math.max(0, lines.getMaxX()), Math.max(0, lines.getMaxY()));
+	}
+
+	/**
+	 * @return Die Anzahl der gesetzten Zellen
+	 */
+	public int getCellCount() {
+		return lines.size();
 	}
 
 }
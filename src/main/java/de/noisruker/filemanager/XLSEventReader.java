@@ -0,0 +1,476 @@
+/*
+ * ExcelAndCSVToArray
+ * XLSEventReader.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactory;
+import org.apache.poi.hssf.record.RecordInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.RecordFormatException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Liest eine .xls Datei über das Event Modell von POI, also Eintrag für
+ * Eintrag, ohne das Workbook im Speicher aufzubauen. Die Zellen werden
+ * entweder mit ihrem Typ in je einen {@link WriteableContent} pro Tabelle
+ * geschrieben oder als Text zu Zeilen zusammengesetzt und an einen
+ * {@link RowListener} weitergegeben. Im zweiten Fall wird immer nur eine Zeile
+ * im Speicher gehalten. Formeln liefern ihr zuletzt berechnetes Ergebnis.
+ * <p>
+ * Die Positionen der Tabellen im Datenstrom stehen am Anfang der Datei. Über
+ * {@link #readGlobals(DirectoryNode)} und {@link #readSheet(DirectoryNode, int)}
+ * kann daher jede Tabelle einzeln gelesen werden, ohne die Tabellen davor zu
+ * durchlaufen.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class XLSEventReader extends AbortableHSSFListener implements Closeable {
+
+	private static final short CONTINUE = 0, ABORT = 1;
+	private static final int SKIP_BUFFER_SIZE = 1 << 16;
+
+	private final RowListener listener;
+	private final List<WriteableContent> contents;
+	private final int rowLimit;
+
+	private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(null);
+	private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+	private BoundSheetRecord[] sheets;
+	private InputStream sharedStringsInput;
+	private RecordInputStream sharedStringsRecords;
+	private final List<String> sharedStrings = new ArrayList<>();
+	private int sharedStringsLeft;
+	private boolean date1904;
+
+	private int depth;
+	private int sheet = -1;
+	private boolean inSheet, stopAfterSheet, full;
+	private Vec2i dimension;
+	private WriteableContent current;
+
+	private String[] row = new String[16];
+	private int length;
+	private int y = -1;
+	private FormulaRecord pendingFormula;
+
+	/**
+	 * @param listener Empfängt die gelesenen Zeilen
+	 * @param rowLimit Zeilen ab dieser Nummer werden nicht mehr gelesen
+	 */
+	XLSEventReader(RowListener listener, int rowLimit) {
+		this.listener = listener;
+		this.contents = null;
+		this.rowLimit = rowLimit;
+	}
+
+	/**
+	 * @param contents Erhält für jede gelesene Tabelle einen neuen Inhalt
+	 */
+	XLSEventReader(List<WriteableContent> contents) {
+		this.listener = null;
+		this.contents = contents;
+		this.rowLimit = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Liest den allgemeinen Teil des Workbooks mit den Namen der Tabellen und den
+	 * Zahlenformaten und bricht danach ab. Die gemeinsamen Texte werden dabei
+	 * nur übersprungen und später nur so weit gelesen, wie die Zellen sie
+	 * benötigen.
+	 *
+	 * @param root Das Verzeichnis der Datei
+	 */
+	void readGlobals(DirectoryNode root) throws IOException {
+		long offset = 0, sharedStringsOffset = -1;
+
+		try (InputStream input = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root))) {
+			RecordInputStream in = new RecordInputStream(input);
+			loop: while (in.hasNextRecord()) {
+				in.nextRecord();
+				int size = in.remaining();
+				switch (in.getSid()) {
+				case BoundSheetRecord.sid:
+					this.boundSheets.add(new BoundSheetRecord(in));
+					break;
+				case FormatRecord.sid:
+					this.formats.processRecordInternally(new FormatRecord(in));
+					break;
+				case ExtendedFormatRecord.sid:
+					this.formats.processRecordInternally(new ExtendedFormatRecord(in));
+					break;
+				case SSTRecord.sid:
+					sharedStringsOffset = offset;
+					break;
+				case DateWindow1904Record.sid:
+					this.date1904 = new DateWindow1904Record(in).getWindowing() == 1;
+					break;
+				case FilePassRecord.sid:
+					throw new IOException("Verschlüsselte .xls Dateien werden nicht unterstützt");
+				case EOFRecord.sid:
+					break loop;
+				default:
+					break;
+				}
+				if (in.remaining() > 0)
+					in.readRemainder();
+				offset += 4 + size;
+			}
+		} catch (RecordFormatException e) {
+			throw new IOException("Fehler beim Lesen einer .xls Datei", e);
+		}
+
+		this.sheets = BoundSheetRecord.orderByBofPosition(this.boundSheets);
+
+		if (sharedStringsOffset >= 0) {
+			this.sharedStringsInput = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root));
+			skip(this.sharedStringsInput, sharedStringsOffset);
+			this.sharedStringsRecords = new RecordInputStream(this.sharedStringsInput);
+			this.sharedStringsRecords.nextRecord();
+			this.sharedStringsRecords.readInt();
+			this.sharedStringsLeft = this.sharedStringsRecords.readInt();
+		}
+	}
+
+	/**
+	 * Liest eine einzelne Tabelle, indem der Datenstrom direkt an ihren Anfang
+	 * springt. Setzt {@link #readGlobals(DirectoryNode)} voraus.
+	 *
+	 * @param root  Das Verzeichnis der Datei
+	 * @param index Der Index der Tabelle
+	 */
+	void readSheet(DirectoryNode root, int index) throws IOException {
+		try (InputStream input = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root))) {
+			skip(input, this.sheets[index].getPositionOfBof());
+			this.depth = 0;
+			this.sheet = index - 1;
+			this.stopAfterSheet = true;
+			this.process(input);
+		}
+	}
+
+	/**
+	 * Liest alle Tabellen in einem Durchlauf, beginnend bei der ersten Tabelle.
+	 * Setzt {@link #readGlobals(DirectoryNode)} voraus.
+	 *
+	 * @param root Das Verzeichnis der Datei
+	 */
+	void readSheets(DirectoryNode root) throws IOException {
+		if (this.sheets.length == 0)
+			return;
+
+		try (InputStream input = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root))) {
+			skip(input, this.sheets[0].getPositionOfBof());
+			this.depth = 0;
+			this.sheet = -1;
+			this.stopAfterSheet = false;
+			this.process(input);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.sharedStringsInput != null)
+			this.sharedStringsInput.close();
+	}
+
+	/**
+	 * Überspringt Bytes in kleinen Blöcken, da
+	 * {@link java.io.InputStream#skip(long)} der POI Streams die ganze Länge auf
+	 * einmal in ein neues Array liest.
+	 */
+	private static void skip(InputStream input, long bytes) throws IOException {
+		byte[] buffer = new byte[(int) Math.min(bytes, SKIP_BUFFER_SIZE)];
+		while (bytes > 0) {
+			int read = input.read(buffer, 0, (int) Math.min(bytes, buffer.length));
+			if (read <= 0)
+				throw new IOException("Invalid record position in .xls file");
+			bytes -= read;
+		}
+	}
+
+	private void process(InputStream input) throws IOException {
+		HSSFRequest request = new HSSFRequest();
+		request.addListenerForAllRecords(this);
+		try {
+			new HSSFEventFactory().abortableProcessEvents(request, input);
+		} catch (HSSFUserException e) {
+			throw new IOException("Fehler beim Lesen einer .xls Datei", e);
+		}
+	}
+
+	/**
+	 * @return Die Namen aller Tabellen in der Reihenfolge der Datei
+	 */
+	List<String> getSheetNames() {
+		List<String> names = new ArrayList<>(this.sheets.length);
+		for (BoundSheetRecord sheet : this.sheets)
+			names.add(sheet.getSheetname());
+		return names;
+	}
+
+	/**
+	 * @return Die Ausdehnung der zuletzt gelesenen Tabelle laut der Datei oder
+	 *         null
+	 */
+	Vec2i getDimension() {
+		return this.dimension;
+	}
+
+	@Override
+	public short abortableProcessRecord(Record record) {
+		switch (record.getSid()) {
+		case BOFRecord.sid:
+			if (this.depth++ == 0 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK)
+				this.startSheet();
+			return CONTINUE;
+		case EOFRecord.sid:
+			if (--this.depth == 0)
+				return this.inSheet ? this.endSheet() : ABORT;
+			return CONTINUE;
+		default:
+			break;
+		}
+
+		// Eingebettete Diagramme haben eigene Abschnitte ohne Zellen
+		if (this.depth != 1)
+			return CONTINUE;
+
+		if (!this.inSheet || this.full)
+			return CONTINUE;
+
+		switch (record.getSid()) {
+		case DimensionsRecord.sid: {
+			DimensionsRecord dimensions = (DimensionsRecord) record;
+			if (dimensions.getLastRow() > 0 && dimensions.getLastCol() > 0)
+				this.dimension = new Vec2i(dimensions.getLastCol() - 1, dimensions.getLastRow() - 1);
+			return CONTINUE;
+		}
+		case StringRecord.sid:
+			if (this.pendingFormula != null)
+				this.text(this.pendingFormula, ((StringRecord) record).getString());
+			this.pendingFormula = null;
+			return CONTINUE;
+		// Wie im Usermodel in einzelne Zellen aufteilen
+		case RKRecord.sid:
+			return this.abortableProcessRecord(RecordFactory.convertToNumberRecord((RKRecord) record));
+		case MulRKRecord.sid:
+			return this.processAll(RecordFactory.convertRKRecords((MulRKRecord) record));
+		case MulBlankRecord.sid:
+			return this.processAll(RecordFactory.convertBlankRecords((MulBlankRecord) record));
+		default:
+			break;
+		}
+
+		if (!(record instanceof CellValueRecordInterface))
+			return CONTINUE;
+		CellValueRecordInterface cell = (CellValueRecordInterface) record;
+		if (cell.getRow() >= this.rowLimit) {
+			this.flushRow();
+			this.full = true;
+			return this.stopAfterSheet ? this.endSheet() : CONTINUE;
+		}
+
+		this.pendingFormula = null;
+		switch (record.getSid()) {
+		case LabelSSTRecord.sid:
+			this.text(cell, this.sharedString(((LabelSSTRecord) record).getSSTIndex()));
+			break;
+		case LabelRecord.sid:
+			this.text(cell, ((LabelRecord) record).getValue());
+			break;
+		case NumberRecord.sid:
+			this.number(cell, ((NumberRecord) record).getValue());
+			break;
+		case BoolErrRecord.sid: {
+			BoolErrRecord value = (BoolErrRecord) record;
+			if (value.isBoolean())
+				this.bool(cell, value.getBooleanValue());
+			else
+				this.text(cell, "");
+			break;
+		}
+		case FormulaRecord.sid:
+			this.formula((FormulaRecord) record);
+			break;
+		case BlankRecord.sid:
+			if (this.current != null)
+				this.current.addBlank(new Vec2i(cell.getColumn(), cell.getRow()));
+			break;
+		default:
+			break;
+		}
+		return CONTINUE;
+	}
+
+	private short processAll(Record[] records) {
+		for (Record record : records)
+			if (this.abortableProcessRecord(record) == ABORT)
+				return ABORT;
+		return CONTINUE;
+	}
+
+	private void startSheet() {
+		this.sheet++;
+		this.inSheet = true;
+		this.full = false;
+		this.dimension = null;
+		this.y = -1;
+		this.length = 0;
+		if (this.contents != null) {
+			this.current = new WriteableContent(this.getSheetName()).enableDictionaryEncoding();
+			this.contents.add(this.current);
+		} else {
+			this.listener.startSheet(this.sheet, this.getSheetName());
+		}
+	}
+
+	private short endSheet() {
+		this.flushRow();
+		this.inSheet = false;
+		if (this.contents == null)
+			this.listener.endSheet(this.sheet, this.getSheetName());
+		this.current = null;
+		return this.stopAfterSheet ? ABORT : CONTINUE;
+	}
+
+	private String getSheetName() {
+		return this.sheets != null && this.sheet < this.sheets.length ? this.sheets[this.sheet].getSheetname() : "";
+	}
+
+	/**
+	 * @param index Der Index in den gemeinsamen Texten
+	 * @return Der Text, der bei Bedarf erst jetzt gelesen wird
+	 */
+	private String sharedString(int index) {
+		try {
+			while (this.sharedStrings.size() <= index && this.sharedStringsLeft > 0) {
+				this.sharedStrings.add(new UnicodeString(this.sharedStringsRecords).getString());
+				this.sharedStringsLeft--;
+			}
+		} catch (RecordFormatException e) {
+			this.sharedStringsLeft = 0;
+		}
+		return index < this.sharedStrings.size() ? this.sharedStrings.get(index) : "";
+	}
+
+	private void formula(FormulaRecord record) {
+		if (record.hasCachedResultString()) {
+			// Der Text folgt im nächsten Eintrag
+			this.pendingFormula = record;
+			return;
+		}
+
+		CellType type = record.getCachedResultTypeEnum();
+		if (type == CellType.NUMERIC)
+			this.number(record, record.getValue());
+		else if (type == CellType.BOOLEAN)
+			this.bool(record, record.getCachedBooleanValue());
+		else
+			this.text(record, "");
+	}
+
+	private void text(CellValueRecordInterface cell, String value) {
+		if (this.current != null)
+			this.current.addCell(new Vec2i(cell.getColumn(), cell.getRow()), value);
+		else
+			this.cell(cell, value);
+	}
+
+	/**
+	 * Unterscheidet Datumsangaben über das Zahlenformat der Zelle von Zahlen.
+	 */
+	private void number(CellValueRecordInterface cell, double value) {
+		int format = this.formats.getFormatIndex(cell);
+		boolean date = DateUtil.isADateFormat(format, this.formats.getFormatString(format))
+				&& DateUtil.isValidExcelDate(value);
+
+		if (this.current == null)
+			this.cell(cell, date ? DateUtil.getLocalDateTime(value, this.date1904).toString()
+					: CellStore.format(ValueType.NUMERIC, value));
+		else if (date)
+			this.current.addDate(new Vec2i(cell.getColumn(), cell.getRow()),
+					DateUtil.getLocalDateTime(value, this.date1904));
+		else
+			this.current.addNumber(new Vec2i(cell.getColumn(), cell.getRow()), value);
+	}
+
+	private void bool(CellValueRecordInterface cell, boolean value) {
+		if (this.current != null)
+			this.current.addBoolean(new Vec2i(cell.getColumn(), cell.getRow()), value);
+		else
+			this.cell(cell, CellStore.format(ValueType.BOOLEAN, value ? 1 : 0));
+	}
+
+	private void cell(CellValueRecordInterface cell, String value) {
+		if (cell.getRow() != this.y) {
+			this.flushRow();
+			this.y = cell.getRow();
+		}
+		int x = cell.getColumn();
+		if (x >= this.row.length)
+			this.row = Arrays.copyOf(this.row, Math.max(x + 1, this.row.length << 1));
+		this.row[x] = value;
+		this.length = Math.max(this.length, x + 1);
+	}
+
+	private void flushRow() {
+		if (this.length > 0)
+			this.listener.row(this.y, Arrays.copyOf(this.row, this.length));
+		Arrays.fill(this.row, 0, this.length, null);
+		this.length = 0;
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * ExcelAndCSVToArray
+ * XLSLazyWorkbook.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ein {@link LazyWorkbook} für .xls Dateien. Das Workbook wird beim Öffnen von
+ * POI gelesen, die Umwandlung der Tabellen passiert erst beim Zugriff.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class XLSLazyWorkbook extends LazyWorkbook {
+
+	private final HSSFWorkbook workbook;
+	private final FormulaMode formulaMode;
+	private FormulaEvaluator evaluator;
+
+	XLSLazyWorkbook(HSSFWorkbook workbook, FormulaMode formulaMode) {
+		super(names(workbook));
+		this.workbook = workbook;
+		this.formulaMode = formulaMode;
+	}
+
+	@Override
+	WriteableContent load(int index) {
+		if (this.evaluator == null)
+			this.evaluator = ExcelImporter.evaluator(this.workbook, this.formulaMode);
+
+		HSSFSheet sheet = this.workbook.getSheetAt(index);
+		WriteableContent input = new WriteableContent(sheet.getSheetName()).enableDictionaryEncoding();
+		ExcelImporter.readSheet(sheet, input, this.evaluator, this.formulaMode);
+		return input;
+	}
+
+	@Override
+	Vec2i readDimension(int index) {
+		HSSFSheet sheet = this.workbook.getSheetAt(index);
+		int maxX = 0;
+		for (Row row : sheet)
+			maxX = Math.max(maxX, row.getLastCellNum() - 1);
+		return new Vec2i(maxX, Math.max(0, sheet.getLastRowNum()));
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.workbook.close();
+	}
+
+	private static List<String> names(HSSFWorkbook workbook) {
+		List<String> names = new ArrayList<>(workbook.getNumberOfSheets());
+		for (int i = 0; i < workbook.getNumberOfSheets(); i++)
+			names.add(workbook.getSheetName(i));
+		return names;
+	}
+
+}
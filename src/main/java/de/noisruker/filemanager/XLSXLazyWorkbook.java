@@ -0,0 +1,214 @@
+/*
+ * ExcelAndCSVToArray
+ * XLSXLazyWorkbook.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ein {@link LazyWorkbook} für .xlsx Dateien. Beim Öffnen wird nur die
+ * Übersicht des Workbooks gelesen. Die gemeinsamen Texte und Formatierungen
+ * werden beim ersten Zugriff auf eine Tabelle geladen, die Tabellen selbst
+ * über SAX gelesen.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+final class XLSXLazyWorkbook extends LazyWorkbook {
+
+	private final OPCPackage pkg;
+	private final XSSFReader reader;
+	private final List<PackagePart> parts;
+
+	private ReadOnlySharedStringsTable strings;
+	private LazySharedStrings previewStrings;
+	private StylesTable styles;
+	private Boolean date1904;
+
+	XLSXLazyWorkbook(OPCPackage pkg) throws IOException, OpenXML4JException {
+		this(pkg, new XSSFReader(pkg), new ArrayList<>(), new ArrayList<>());
+	}
+
+	private XLSXLazyWorkbook(OPCPackage pkg, XSSFReader reader, List<String> names, List<PackagePart> parts)
+			throws IOException, OpenXML4JException {
+		super(readSheets(reader, names, parts));
+		this.pkg = pkg;
+		this.reader = reader;
+		this.parts = parts;
+	}
+
+	@Override
+	WriteableContent load(int index) throws IOException {
+		ContentCollector collector = new ContentCollector();
+		collector.startSheet(index, this.getSheetNames().get(index));
+
+		try (InputStream sheet = this.parts.get(index).getInputStream()) {
+			if (this.strings == null)
+				this.strings = new ReadOnlySharedStringsTable(this.pkg);
+			ExcelImporter.parseXLSXSheet(sheet, this.styles(), this.strings, this.isDate1904(), collector);
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new IOException("Fehler beim Lesen einer .xlsx Tabelle", e);
+		}
+
+		return collector.getFirst();
+	}
+
+	/**
+	 * Liest nur die ersten Zeilen einer Tabelle über SAX und bricht danach ab.
+	 * Wurde noch keine Tabelle vollständig geladen, werden auch die gemeinsamen
+	 * Texte nur so weit gelesen, wie die Zeilen sie benötigen.
+	 *
+	 * @param index Der Index der Tabelle
+	 * @param rows  Die Anzahl der Zeilen
+	 * @return Die Vorschau der Tabelle
+	 */
+	SheetPreview peek(int index, int rows) throws IOException {
+		String name = this.getSheetNames().get(index);
+		ContentCollector collector = new ContentCollector();
+		collector.startSheet(index, name);
+
+		try (InputStream sheet = this.parts.get(index).getInputStream()) {
+			SharedStrings strings = this.strings != null ? this.strings : this.previewStrings();
+			ExcelImporter.parseXLSXSheet(sheet, this.styles(), strings, this.isDate1904(),
+					new RowProjection(new ImportOptions().rows(0, rows), collector));
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new IOException("Fehler beim Lesen einer .xlsx Tabelle", e);
+		}
+
+		return new SheetPreview(name, collector.getFirst(), this.getDimension(index));
+	}
+
+	private StylesTable styles() throws IOException, OpenXML4JException {
+		if (this.styles == null)
+			this.styles = this.reader.getStylesTable();
+		return this.styles;
+	}
+
+	private boolean isDate1904()
+			throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+		if (this.date1904 == null)
+			this.date1904 = ExcelImporter.isDate1904(this.reader);
+		return this.date1904;
+	}
+
+	private LazySharedStrings previewStrings() throws IOException {
+		if (this.previewStrings == null) {
+			List<PackagePart> parts = this.pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+			this.previewStrings = new LazySharedStrings(parts.isEmpty() ? null : parts.get(0).getInputStream());
+		}
+		return this.previewStrings;
+	}
+
+	/**
+	 * Liest nur den Anfang der Tabelle bis zum Eintrag "dimension", der vor den
+	 * Zellen steht.
+	 */
+	@Override
+	Vec2i readDimension(int index) throws IOException {
+		DimensionHandler handler = new DimensionHandler();
+
+		try (InputStream sheet = this.parts.get(index).getInputStream()) {
+			XMLReader parser = XMLHelper.newXMLReader();
+			parser.setContentHandler(handler);
+			parser.parse(new InputSource(sheet));
+		} catch (StopParsing e) {
+			// Der Eintrag wurde gefunden oder die Zellen beginnen
+		} catch (SAXException | ParserConfigurationException e) {
+			throw new IOException("Fehler beim Lesen einer .xlsx Tabelle", e);
+		}
+
+		if (handler.reference == null)
+			return null;
+		String reference = handler.reference;
+		CellReference end = new CellReference(reference.substring(reference.indexOf(':') + 1));
+		return new Vec2i(end.getCol(), end.getRow());
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (this.previewStrings != null)
+				this.previewStrings.close();
+		} finally {
+			this.pkg.revert();
+		}
+	}
+
+	private static List<String> readSheets(XSSFReader reader, List<String> names, List<PackagePart> parts)
+			throws IOException, OpenXML4JException {
+		XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+		while (sheets.hasNext()) {
+			sheets.next().close();
+			names.add(sheets.getSheetName());
+			parts.add(sheets.getSheetPart());
+		}
+		return names;
+	}
+
+	private static final class DimensionHandler extends DefaultHandler {
+
+		private String reference;
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes)
+				throws SAXException {
+			if ("dimension".equals(localName)) {
+				this.reference = attributes.getValue("ref");
+				throw new StopParsing();
+			}
+			if ("sheetData".equals(localName))
+				throw new StopParsing();
+		}
+
+	}
+
+	/**
+	 * Bricht das Lesen einer Tabelle ab, sobald die benötigten Daten vorliegen.
+	 */
+	static final class StopParsing extends SAXException {
+
+		private static final long serialVersionUID = 1L;
+
+		StopParsing() {
+			super("Parsing stopped");
+		}
+
+	}
+
+}
@@ -0,0 +1,296 @@
+/*
+ * ExcelAndCSVToArray
+ * XLSXSheetHandler.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Setzt die SAX Ereignisse einer .xlsx Tabelle zu Zeilen zusammen und gibt
+ * diese an einen {@link RowListener} weiter. Zahlen, Wahrheitswerte,
+ * Datumsangaben und leere Zellen werden wie von den Importern mit
+ * vollständigem Workbook erkannt und an einen {@link TypedRowListener}
+ * typisiert weitergegeben.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+class XLSXSheetHandler implements SheetContentsHandler {
+
+	private final RowListener listener;
+	private final RowProjection projection;
+
+	private String[] row = new String[16];
+	private ValueType[] types = new ValueType[16];
+	private double[] values = new double[16];
+	private boolean typed;
+	private int length;
+	private int y;
+	private boolean date1904;
+
+	private String cellType;
+	private String cellReference;
+	private boolean valueSeen;
+	private boolean numeric;
+	private double number;
+	private boolean date;
+
+	XLSXSheetHandler(RowListener listener) {
+		this.listener = listener;
+		this.projection = null;
+	}
+
+	/**
+	 * @param projection Empfängt die fertigen Zeilen. Zellen, die sie nicht
+	 *                   übernimmt, werden nicht gespeichert.
+	 */
+	XLSXSheetHandler(RowProjection projection) {
+		this.listener = projection;
+		this.projection = projection;
+	}
+
+	/**
+	 * Merkt sich Zahlen mit ihrem Zahlenformat, statt sie als Text zu
+	 * formatieren. Das Format entscheidet nur, ob die Zahl ein Datum ist.
+	 *
+	 * @return Ein neuer Formatierer für diesen Handler, da {@link DataFormatter}
+	 *         nicht threadsicher ist
+	 */
+	private DataFormatter formatter() {
+		return new DataFormatter() {
+			@Override
+			public String formatRawCellContents(double value, int formatIndex, String formatString) {
+				XLSXSheetHandler.this.numeric = true;
+				XLSXSheetHandler.this.number = value;
+				XLSXSheetHandler.this.date = DateUtil.isADateFormat(formatIndex, formatString)
+						&& DateUtil.isValidExcelDate(value);
+				return "" + value;
+			}
+		};
+	}
+
+	@Override
+	public void startRow(int rowNum) {
+		this.y = rowNum;
+		Arrays.fill(this.row, 0, this.length, null);
+		Arrays.fill(this.types, 0, this.length, null);
+		this.typed = false;
+		this.length = 0;
+	}
+
+	@Override
+	public void endRow(int rowNum) {
+		String[] cells = Arrays.copyOf(this.row, this.length);
+		if (this.typed)
+			TypedRowListener.forward(this.listener, rowNum, cells, Arrays.copyOf(this.types, this.length),
+					Arrays.copyOf(this.values, this.length));
+		else
+			this.listener.row(rowNum, cells);
+	}
+
+	@Override
+	public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+		// Kommentare an Zellen, die es in der Tabelle nicht gibt
+		if (formattedValue == null)
+			return;
+		this.valueSeen = true;
+		this.put(cellReference, formattedValue);
+	}
+
+	/**
+	 * Eine Zelle ohne Wert, z.B. nur mit Formatierung. POI meldet sie nicht,
+	 * die Importer mit vollständigem Workbook übernehmen sie aber als
+	 * {@link ValueType#BLANK}.
+	 */
+	private void endCell() {
+		if (!this.valueSeen && this.cellReference != null)
+			this.put(this.cellReference, null);
+	}
+
+	private void put(String cellReference, String formattedValue) {
+		int x = column(cellReference);
+		if (this.projection != null && !this.projection.wants(this.y, x))
+			return;
+		if (x >= this.row.length) {
+			int length = Math.max(x + 1, this.row.length << 1);
+			this.row = Arrays.copyOf(this.row, length);
+			this.types = Arrays.copyOf(this.types, length);
+			this.values = Arrays.copyOf(this.values, length);
+		}
+		this.length = Math.max(this.length, x + 1);
+
+		if (formattedValue == null) {
+			this.typed(x, ValueType.BLANK, 0);
+		} else if ("b".equals(this.cellType)) {
+			this.typed(x, ValueType.BOOLEAN, "FALSE".equals(formattedValue) ? 0 : 1);
+		} else if ("e".equals(this.cellType)) {
+			this.row[x] = "";
+		} else if (this.cellType == null || "n".equals(this.cellType)) {
+			this.number(x, formattedValue);
+		} else {
+			this.row[x] = formattedValue;
+		}
+	}
+
+	/**
+	 * Ohne Zahlenformat gibt POI die Zahl unverändert als Text weiter, sie wird
+	 * dann hier gelesen.
+	 */
+	private void number(int x, String formattedValue) {
+		double value = this.number;
+		if (!this.numeric) {
+			try {
+				value = Double.parseDouble(formattedValue);
+			} catch (NumberFormatException e) {
+				this.row[x] = formattedValue;
+				return;
+			}
+		}
+
+		if (!this.date)
+			this.typed(x, ValueType.NUMERIC, value);
+		else if (this.date1904)
+			this.typed(x, ValueType.DATE, DateUtil.getExcelDate(DateUtil.getLocalDateTime(value, true)));
+		else
+			this.typed(x, ValueType.DATE, value);
+	}
+
+	private void typed(int x, ValueType type, double value) {
+		this.row[x] = CellStore.format(type, value);
+		this.types[x] = type;
+		this.values[x] = value;
+		this.typed = true;
+	}
+
+	private void startCell(String type, String reference) {
+		this.cellType = type;
+		this.cellReference = reference;
+		this.valueSeen = false;
+		this.numeric = false;
+		this.date = false;
+	}
+
+	/**
+	 * Liest den Spaltenindex aus einer Zellreferenz wie "AB12".
+	 *
+	 * @param cellReference Die Zellreferenz
+	 * @return Der Spaltenindex, beginnend bei 0
+	 */
+	static int column(String cellReference) {
+		int column = 0;
+		for (int i = 0; i < cellReference.length(); i++) {
+			char c = cellReference.charAt(i);
+			if (c < 'A' || c > 'Z')
+				break;
+			column = column * 26 + (c - 'A' + 1);
+		}
+		return column - 1;
+	}
+
+	/**
+	 * Liest aus dem Workbook, ob Datumsangaben ab 1904 gezählt werden. Der
+	 * Eintrag steht vor der Liste der Tabellen, danach wird abgebrochen.
+	 *
+	 * @param workbook Der Inhalt von workbook.xml
+	 * @return Ob das Workbook das 1904 Datumssystem nutzt
+	 */
+	static boolean isDate1904(InputStream workbook) throws IOException, SAXException, ParserConfigurationException {
+		Date1904Handler handler = new Date1904Handler();
+		try {
+			XMLReader parser = XMLHelper.newXMLReader();
+			parser.setContentHandler(handler);
+			parser.parse(new InputSource(workbook));
+		} catch (XLSXLazyWorkbook.StopParsing e) {
+			// Der Eintrag wurde gefunden oder die Tabellen beginnen
+		}
+		return handler.date1904;
+	}
+
+	/**
+	 * Liest ein Sheet mit diesem Handler. Die Art jeder Zelle wird aus ihrem
+	 * Attribut "t" gelesen, Wahrheitswerte werden dadurch so ausgegeben wie von
+	 * den Importern mit vollständigem Workbook, also als "true" und "false"
+	 * statt "TRUE" und "FALSE".
+	 */
+	static class Parser extends XSSFSheetXMLHandler {
+
+		private final XLSXSheetHandler handler;
+
+		/**
+		 * @param date1904 Ob das Workbook Datumsangaben ab 1904 zählt
+		 */
+		Parser(StylesTable styles, SharedStrings strings, XLSXSheetHandler handler, boolean date1904) {
+			super(styles, strings, handler, handler.formatter(), false);
+			this.handler = handler;
+			handler.date1904 = date1904;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes)
+				throws SAXException {
+			if ("c".equals(localName))
+				this.handler.startCell(attributes.getValue("t"), attributes.getValue("r"));
+			super.startElement(uri, localName, qName, attributes);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			super.endElement(uri, localName, qName);
+			if ("c".equals(localName))
+				this.handler.endCell();
+		}
+
+	}
+
+	private static final class Date1904Handler extends DefaultHandler {
+
+		private boolean date1904;
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes)
+				throws SAXException {
+			if ("workbookPr".equals(localName)) {
+				String value = attributes.getValue("date1904");
+				this.date1904 = "1".equals(value) || "true".equals(value);
+				throw new XLSXLazyWorkbook.StopParsing();
+			}
+			if ("sheets".equals(localName))
+				throw new XLSXLazyWorkbook.StopParsing();
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * ExcelAndCSVToArray
+ * Metrics.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+import static de.noisruker.logger.Logger.LOGGER;
+
+/**
+ * Verwaltet die {@link MetricsListener}. Ohne registrierte Listener und ohne
+ * laufende Flight Recorder Aufzeichnung werden keine Messwerte erhoben.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public class Metrics {
+
+	private static final List<MetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	protected Metrics() {
+	}
+
+	public static void addListener(MetricsListener listener) {
+		LISTENERS.add(listener);
+	}
+
+	public static void removeListener(MetricsListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * @return Ob mindestens ein Listener registriert ist
+	 */
+	public static boolean hasListeners() {
+		return !LISTENERS.isEmpty();
+	}
+
+	/**
+	 * Gibt die Messwerte an alle Listener weiter. Fehler eines Listeners werden
+	 * protokolliert und brechen den Im- oder Export nicht ab.
+	 *
+	 * @param metrics Die Messwerte eines abgeschlossenen Abschnitts
+	 */
+	public static void publish(PhaseMetrics metrics) {
+		for (MetricsListener listener : LISTENERS) {
+			try {
+				listener.onPhase(metrics);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Metrics listener failed", e);
+			}
+		}
+	}
+
+}
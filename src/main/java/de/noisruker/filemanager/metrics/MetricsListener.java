@@ -0,0 +1,40 @@
+/*
+ * ExcelAndCSVToArray
+ * MetricsListener.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager.metrics;
+
+/**
+ * Empfängt die Messwerte der Im- und Exporte. Wird mit
+ * {@link Metrics#addListener(MetricsListener)} registriert und auf dem Thread
+ * aufgerufen, der den Abschnitt ausgeführt hat. Die Methode sollte daher
+ * schnell zurückkehren.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+	/**
+	 * @param metrics Die Messwerte eines abgeschlossenen Abschnitts
+	 */
+	void onPhase(PhaseMetrics metrics);
+
+}
@@ -0,0 +1,53 @@
+/*
+ * ExcelAndCSVToArray
+ * Phase.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager.metrics;
+
+/**
+ * Die Abschnitte eines Im- oder Exports, für die Messwerte erhoben werden.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public enum Phase {
+
+	/**
+	 * Das Lesen der Datei, bei gestreamten Importen einschließlich des Befüllens
+	 * der Tabellen
+	 */
+	PARSE,
+	/**
+	 * Das Übertragen der Zellen in die Tabellen oder in das Workbook
+	 */
+	MATERIALIZE,
+	/**
+	 * Das Erstellen oder Nachschlagen der Formatierungen
+	 */
+	STYLE,
+	/**
+	 * Das Anpassen der Spaltenbreiten
+	 */
+	AUTOSIZE,
+	/**
+	 * Das Schreiben der Datei
+	 */
+	FLUSH
+
+}
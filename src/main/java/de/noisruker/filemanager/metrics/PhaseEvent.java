@@ -0,0 +1,67 @@
+/*
+ * ExcelAndCSVToArray
+ * PhaseEvent.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Das Flight Recorder Ereignis zu einem Abschnitt eines Im- oder Exports. Ist
+ * wie alle eigenen Ereignisse standardmäßig in den Einstellungen "default" und
+ * "profile" aktiv und kostet ohne laufende Aufzeichnung nahezu nichts.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+@Name("de.noisruker.filemanager.Phase")
+@Label("Table File Phase")
+@Category({ "Table File Manager" })
+@Description("A phase of a table file import or export")
+public final class PhaseEvent extends Event {
+
+	@Label("Operation")
+	public String operation;
+
+	@Label("Phase")
+	public String phase;
+
+	@Label("Sheet")
+	public String sheet;
+
+	@Label("Rows")
+	public long rows;
+
+	@Label("Cells")
+	public long cells;
+
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+
+	@Label("Allocated")
+	@DataAmount
+	public long allocated;
+
+}
@@ -0,0 +1,109 @@
+/*
+ * ExcelAndCSVToArray
+ * PhaseMetrics.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.noisruker.filemanager.metrics;
+
+/**
+ * Die Messwerte eines abgeschlossenen Abschnitts. Nicht bekannte Werte sind
+ * -1.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+public final class PhaseMetrics {
+
+	private final String operation;
+	private final Phase phase;
+	private final String sheet;
+	private final long rows, cells, bytes, durationNanos, allocatedBytes;
+
+	public PhaseMetrics(String operation, Phase phase, String sheet, long rows, long cells, long bytes,
+			long durationNanos, long allocatedBytes) {
+		this.operation = operation;
+		this.phase = phase;
+		this.sheet = sheet;
+		this.rows = rows;
+		this.cells = cells;
+		this.bytes = bytes;
+		this.durationNanos = durationNanos;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * @return Die aufgerufene Methode, z.B. "readXLSX" oder "writeCSV"
+	 */
+	public String getOperation() {
+		return this.operation;
+	}
+
+	public Phase getPhase() {
+		return this.phase;
+	}
+
+	/**
+	 * @return Der Name der Tabelle oder null, wenn der Abschnitt die ganze Datei
+	 *         betrifft
+	 */
+	public String getSheet() {
+		return this.sheet;
+	}
+
+	public long getRows() {
+		return this.rows;
+	}
+
+	public long getCells() {
+		return this.cells;
+	}
+
+	/**
+	 * @return Die Anzahl gelesener oder geschriebener Bytes der Datei
+	 */
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	public long getDurationNanos() {
+		return this.durationNanos;
+	}
+
+	/**
+	 * @return Die im aufrufenden Thread angelegten Bytes. Arbeit auf anderen
+	 *         Threads ist nicht enthalten.
+	 */
+	public long getAllocatedBytes() {
+		return this.allocatedBytes;
+	}
+
+	/**
+	 * @return Die Anzahl an Zellen pro Sekunde oder -1
+	 */
+	public double getCellsPerSecond() {
+		return this.cells < 0 || this.durationNanos <= 0 ? -1 : this.cells * 1e9 / this.durationNanos;
+	}
+
+	@Override
+	public String toString() {
+		return this.operation + " " + this.phase + (this.sheet == null ? "" : " [" + this.sheet + "]") + ": "
+				+ this.durationNanos / 1_000_000.0 + " ms, rows=" + this.rows + ", cells=" + this.cells + ", bytes="
+				+ this.bytes + ", allocated=" + this.allocatedBytes;
+	}
+
+}
@@ -24,12 +24,19 @@ import org.apache.poi.hssf.usermodel.HSSFFont;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor.HSSFColorPredefined;
 import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFFont;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * Beinhaltet alle Zell-Formatierungsformen, die benutzt werden.
  * 
@@ -38,7 +45,21 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
  */
 public class CellStyles {
 
-	public static HSSFCellStyle title(HSSFWorkbook workbook) {
+	/**
+	 * Die Arten von Formatierungen, die beim Export verwendet werden.
+	 */
+	public enum Kind {
+		TITLE, HEADER, NORMAL1, NORMAL2, UP, NORMAL1_DATE, NORMAL2_DATE
+	}
+
+	/**
+	 * Das Format, mit dem Zellen mit Datum exportiert werden
+	 */
+	public static final String DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+	private static final Map<Workbook, short[]> STYLES = new WeakHashMap<>();
+
+	private static HSSFCellStyle createTitle(HSSFWorkbook workbook) {
 		HSSFFont font = workbook.createFont();
 		font.setBold(true);
 		font.setColor(HSSFColorPredefined.WHITE.getIndex());
@@ -57,7 +78,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static HSSFCellStyle header(HSSFWorkbook workbook) {
+	private static HSSFCellStyle createHeader(HSSFWorkbook workbook) {
 		HSSFFont font = workbook.createFont();
 		font.setBold(true);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -70,7 +91,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static HSSFCellStyle normal2(HSSFWorkbook workbook) {
+	private static HSSFCellStyle createNormal2(HSSFWorkbook workbook) {
 		HSSFFont font = workbook.createFont();
 		font.setBold(false);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -88,7 +109,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static HSSFCellStyle normal1(HSSFWorkbook workbook) {
+	private static HSSFCellStyle createNormal1(HSSFWorkbook workbook) {
 		HSSFFont font = workbook.createFont();
 		font.setBold(false);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -106,7 +127,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static HSSFCellStyle up(HSSFWorkbook workbook) {
+	private static HSSFCellStyle createUp(HSSFWorkbook workbook) {
 		HSSFFont font = workbook.createFont();
 		font.setBold(false);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -124,7 +145,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static XSSFCellStyle title(XSSFWorkbook workbook) {
+	private static XSSFCellStyle createTitle(XSSFWorkbook workbook) {
 		XSSFFont font = workbook.createFont();
 		font.setBold(true);
 		font.setColor(HSSFColorPredefined.WHITE.getIndex());
@@ -143,7 +164,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static XSSFCellStyle header(XSSFWorkbook workbook) {
+	private static XSSFCellStyle createHeader(XSSFWorkbook workbook) {
 		XSSFFont font = workbook.createFont();
 		font.setBold(true);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -157,7 +178,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static XSSFCellStyle normal2(XSSFWorkbook workbook) {
+	private static XSSFCellStyle createNormal2(XSSFWorkbook workbook) {
 		XSSFFont font = workbook.createFont();
 		font.setBold(false);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -175,7 +196,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static XSSFCellStyle normal1(XSSFWorkbook workbook) {
+	private static XSSFCellStyle createNormal1(XSSFWorkbook workbook) {
 		XSSFFont font = workbook.createFont();
 		font.setBold(false);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -193,7 +214,7 @@ public class CellStyles {
 		return style;
 	}
 
-	public static XSSFCellStyle up(XSSFWorkbook workbook) {
+	private static XSSFCellStyle createUp(XSSFWorkbook workbook) {
 		XSSFFont font = workbook.createFont();
 		font.setBold(false);
 		font.setColor(HSSFColorPredefined.BLACK.getIndex());
@@ -210,4 +231,147 @@ public class CellStyles {
 		style.setFillForegroundColor(HSSFColorPredefined.WHITE.getIndex());
 		return style;
 	}
+
+	public static HSSFCellStyle title(HSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.TITLE));
+	}
+
+	public static XSSFCellStyle title(XSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.TITLE));
+	}
+
+	public static CellStyle title(Workbook workbook) {
+		return get(workbook, Kind.TITLE);
+	}
+
+	public static HSSFCellStyle header(HSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.HEADER));
+	}
+
+	public static XSSFCellStyle header(XSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.HEADER));
+	}
+
+	public static CellStyle header(Workbook workbook) {
+		return get(workbook, Kind.HEADER);
+	}
+
+	public static HSSFCellStyle normal2(HSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.NORMAL2));
+	}
+
+	public static XSSFCellStyle normal2(XSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.NORMAL2));
+	}
+
+	public static CellStyle normal2(Workbook workbook) {
+		return get(workbook, Kind.NORMAL2);
+	}
+
+	public static HSSFCellStyle normal1(HSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.NORMAL1));
+	}
+
+	public static XSSFCellStyle normal1(XSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.NORMAL1));
+	}
+
+	public static CellStyle normal1(Workbook workbook) {
+		return get(workbook, Kind.NORMAL1);
+	}
+
+	public static HSSFCellStyle up(HSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.UP));
+	}
+
+	public static XSSFCellStyle up(XSSFWorkbook workbook) {
+		return workbook.getCellStyleAt(index(workbook, Kind.UP));
+	}
+
+	public static CellStyle up(Workbook workbook) {
+		return get(workbook, Kind.UP);
+	}
+
+	/**
+	 * Gibt die Formatierung der entsprechenden Art zurück. Jede Formatierung wird
+	 * pro Workbook nur einmal erstellt und danach wiederverwendet, damit auch
+	 * große Tabellen nicht an die Grenze von Excel für die Anzahl an
+	 * Formatierungen stoßen.
+	 *
+	 * @param workbook Das Workbook, zu dem die Formatierung gehört
+	 * @param kind     Die Art der Formatierung
+	 * @return Die Formatierung
+	 */
+	public static CellStyle get(Workbook workbook, Kind kind) {
+		if (workbook instanceof HSSFWorkbook)
+			return ((HSSFWorkbook) workbook).getCellStyleAt(index(workbook, kind));
+		XSSFWorkbook xssf = xssf(workbook);
+		return xssf.getCellStyleAt(index(xssf, kind));
+	}
+
+	/**
+	 * Speichert nur die Indizes der Formatierungen, da die Formatierungen selbst
+	 * ihr Workbook referenzieren und es sonst nie freigegeben würde.
+	 */
+	private static int index(Workbook workbook, Kind kind) {
+		synchronized (STYLES) {
+			short[] indices = STYLES.computeIfAbsent(workbook, w -> {
+				short[] empty = new short[Kind.values().length];
+				Arrays.fill(empty, (short) -1);
+				return empty;
+			});
+			if (indices[kind.ordinal()] < 0)
+				indices[kind.ordinal()] = create(workbook, kind).getIndex();
+			return indices[kind.ordinal()];
+		}
+	}
+
+	private static CellStyle create(Workbook workbook, Kind kind) {
+		if (kind == Kind.NORMAL1_DATE || kind == Kind.NORMAL2_DATE) {
+			CellStyle style = workbook.createCellStyle();
+			style.cloneStyleFrom(get(workbook, kind == Kind.NORMAL1_DATE ? Kind.NORMAL1 : Kind.NORMAL2));
+			style.setDataFormat(workbook.createDataFormat().getFormat(DATE_FORMAT));
+			return style;
+		}
+		if (workbook instanceof HSSFWorkbook) {
+			HSSFWorkbook hssf = (HSSFWorkbook) workbook;
+			switch (kind) {
+			case TITLE:
+				return createTitle(hssf);
+			case HEADER:
+				return createHeader(hssf);
+			case NORMAL1:
+				return createNormal1(hssf);
+			case NORMAL2:
+				return createNormal2(hssf);
+			default:
+				return createUp(hssf);
+			}
+		}
+		XSSFWorkbook xssf = xssf(workbook);
+		switch (kind) {
+		case TITLE:
+			return createTitle(xssf);
+		case HEADER:
+			return createHeader(xssf);
+		case NORMAL1:
+			return createNormal1(xssf);
+		case NORMAL2:
+			return createNormal2(xssf);
+		default:
+			return createUp(xssf);
+		}
+	}
+
+	/**
+	 * Gestreamte Workbooks legen ihre Formatierungen im zugrunde liegenden
+	 * {@link XSSFWorkbook} ab.
+	 */
+	private static XSSFWorkbook xssf(Workbook workbook) {
+		if (workbook instanceof SXSSFWorkbook)
+			return ((SXSSFWorkbook) workbook).getXSSFWorkbook();
+		if (workbook instanceof XSSFWorkbook)
+			return (XSSFWorkbook) workbook;
+		throw new IllegalArgumentException("Unsupported workbook type " + workbook.getClass().getName());
+	}
 }
@@ -39,6 +39,12 @@ public class Config {
     @ConfigElement(defaultValue = "false", type = ConfigElementType.CHECK, description = "hasHeaderOutput.description", name = "hasHeaderOutput.text", location = "config.export", visible = true)
     public static boolean hasHeaderOutput = true;
 
+    /**
+     * Ob die Spaltenbreiten beim Excel Export exakt über die Schriftmetriken bestimmt werden sollen. Sonst werden sie aus der Länge der Texte geschätzt, was bei großen Tabellen deutlich schneller ist.
+     */
+    @ConfigElement(defaultValue = "false", type = ConfigElementType.CHECK, description = "exactColumnWidths.description", name = "exactColumnWidths.text", location = "config.export", visible = true)
+    public static boolean exactColumnWidths = false;
+
     /**
      * Register the Config values to the config manager. Use this if you want the header output to be configurable. Elsewhere, the header output is set to true.
      * @throws IOException If something went wrong due to the value registration. Post the error as issue in this repository
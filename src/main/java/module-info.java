@@ -2,8 +2,12 @@ module de.noisruker.tablefilemanager {
     requires de.noisruker.logger;
     requires de.noisruker.config;
     requires java.logging;
+    requires java.xml;
+    requires jdk.jfr;
+    requires jdk.management;
     requires org.apache.poi.ooxml;
 
     exports de.noisruker.filemanager;
+    exports de.noisruker.filemanager.metrics;
     exports de.noisruker.filemanager.utils;
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*
+ * ExcelAndCSVToArray
+ * AsyncFileManagerTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft die Begrenzung und das Schließen des {@link AsyncFileManager}.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+class AsyncFileManagerTest {
+
+	@Test
+	void waitingTasksHoldNoThread() throws Exception {
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+		AsyncFileManager manager = new AsyncFileManager(executor, 2);
+		AtomicInteger running = new AtomicInteger(), maxRunning = new AtomicInteger();
+
+		List<CompletableFuture<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			int value = i;
+			results.add(manager.submit(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(1);
+				running.decrementAndGet();
+				return value;
+			}));
+		}
+
+		int sum = 0;
+		for (CompletableFuture<Integer> result : results)
+			sum += result.get();
+		executor.shutdown();
+
+		assertEquals(4950, sum);
+		assertEquals(2, maxRunning.get());
+		assertTrue(executor.getLargestPoolSize() <= 4, "threads: " + executor.getLargestPoolSize());
+	}
+
+	@Test
+	void closeFinishesQueuedTasksAndRejectsNewOnes() throws Exception {
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			AsyncFileManager manager = new AsyncFileManager(executor, 1);
+			List<CompletableFuture<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				int value = i;
+				results.add(manager.submit(() -> {
+					Thread.sleep(5);
+					return value;
+				}));
+			}
+			manager.close();
+
+			for (int i = 0; i < results.size(); i++)
+				assertEquals(i, results.get(i).get());
+			ExecutionException rejected = assertThrows(ExecutionException.class, () -> manager.submit(() -> 1).get());
+			assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+			// Ein übergebener Executor wird nicht beendet
+			assertFalse(executor.isShutdown());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void failedWriteFailsFuture(@TempDir Path dir) throws Exception {
+		// Unter einer Datei lässt sich kein Ordner anlegen
+		Path blocker = Files.createFile(dir.resolve("blocker"));
+		String pathfile = blocker.resolve("export").toString();
+		WriteableContent content = new WriteableContent("x").addLine(new Vec2i(0, 0), "a", "b");
+
+		try (AsyncFileManager manager = new AsyncFileManager(1)) {
+			for (CompletableFuture<Path> result : List.of(manager.writeCSV(pathfile, content),
+					manager.writeXLS(pathfile, content), manager.writeXLSX(pathfile, content))) {
+				ExecutionException failed = assertThrows(ExecutionException.class, result::get);
+				assertInstanceOf(IOException.class, failed.getCause());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * ExcelAndCSVToArray
+ * CSVExporterTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Prüft das Anhängen an bestehende Dateien über
+ * {@link CSVExporter#appendCSV(String, WriteableContent)}.
+ *
+ * @author Juhu1705
+ * @category Export
+ */
+class CSVExporterTest {
+
+	@Test
+	void appendToNewFileWritesHeader(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("neu").resolve("daten.csv");
+		CSVExporter.appendCSV(path(file), content("Name", "Wert; netto"));
+
+		assertEquals("Name;\"Wert; netto\"\r\nC;3\r\n", read(file));
+	}
+
+	@Test
+	void appendToMatchingFileKeepsSingleHeader(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("daten.csv");
+		write(file, "Name;\"Wert; netto\"\r\nA;1\r\n");
+		CSVExporter.appendCSV(path(file), content("Name", "Wert; netto"));
+		CSVExporter.appendCSV(path(file), content("Name", "Wert; netto"));
+
+		assertEquals("Name;\"Wert; netto\"\r\nA;1\r\nC;3\r\nC;3\r\n", read(file));
+	}
+
+	@Test
+	void appendToMismatchingHeaderFailsWithoutWriting(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("daten.csv");
+		write(file, "Name;Anders\r\nA;1");
+		byte[] before = Files.readAllBytes(file);
+
+		assertThrows(IOException.class, () -> CSVExporter.appendCSV(path(file), content("Name", "Wert")));
+		assertArrayEquals(before, Files.readAllBytes(file));
+	}
+
+	@Test
+	void appendInsertsMissingLineBreak(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("daten.csv");
+		write(file, "Name;Wert\r\nA;1");
+		CSVExporter.appendCSV(path(file), content("Name", "Wert"));
+
+		assertEquals("Name;Wert\r\nA;1\r\nC;3\r\n", read(file));
+	}
+
+	@Test
+	void appendIgnoresTrailingEmptyHeaderFields(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("daten.csv");
+		write(file, "Name;Wert;;\nA;1\n");
+		CSVExporter.appendCSV(path(file), content("Name", "Wert"));
+
+		WriteableContent padded = content("Name", "Wert");
+		padded.addCell(new Vec2i(3, 0), "");
+		CSVExporter.appendCSV(path(file), padded);
+
+		assertEquals("Name;Wert;;\nA;1\nC;3\r\nC;3\r\n", read(file));
+	}
+
+	/**
+	 * @return Ein Inhalt mit einer Kopfzeile und der Zeile "C;3"
+	 */
+	private static WriteableContent content(String... header) {
+		WriteableContent content = new WriteableContent();
+		content.addLine(new Vec2i(0, 0), header);
+		content.addLine(new Vec2i(0, 1), "C", "3");
+		return content;
+	}
+
+	/**
+	 * @return Der Pfad ohne die Endung .csv, wie ihn der Exporter erwartet
+	 */
+	private static String path(Path file) {
+		String name = file.toString();
+		return name.substring(0, name.length() - ".csv".length());
+	}
+
+	private static void write(Path file, String text) throws IOException {
+		Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * ExcelAndCSVToArray
+ * CSVTokenizerTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prüft das Zerlegen von CSV Daten durch den {@link CSVTokenizer}.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+class CSVTokenizerTest {
+
+	/**
+	 * Die Puffergröße, mit der {@link CSVImporter} die Datei liest
+	 */
+	private static final int IMPORT_BUFFER = 1 << 16;
+
+	@Test
+	void quotedFieldsMayContainDelimiterLineBreakAndEscapedQuotes() {
+		assertRows(parse("\"a;b\";\"c\r\nd\";\"e\"\"f\"\"\"\r\n"), row("a;b", "c\r\nd", "e\"f\""));
+	}
+
+	@Test
+	void emptyQuotedFieldIsEmpty() {
+		assertRows(parse("\"\";x\n"), row("", "x"));
+	}
+
+	@Test
+	void textAfterClosingQuoteIsKept() {
+		assertRows(parse("\"ab\"cd;e\n"), row("abcd", "e"));
+	}
+
+	@Test
+	void strayQuoteInUnquotedFieldIsLiteral() {
+		assertRows(parse("5\"inch;x\ny\"\";\"z\"\n"), row("5\"inch", "x"), row("y\"\"", "z"));
+	}
+
+	@Test
+	void recordsEndWithCrOrLfOrCrLf() {
+		assertRows(parse("a;b\rc;d\ne;f\r\ng;h\n"), row("a", "b"), row("c", "d"), row("e", "f"), row("g", "h"));
+	}
+
+	@Test
+	void emptyLinesAreEmptyRecords() {
+		assertRows(parse("a\r\n\r\nb\n\nc\r\rd\n"), row("a"), row(""), row("b"), row(""), row("c"), row(""),
+				row("d"));
+	}
+
+	@Test
+	void leadingByteOrderMarkIsSkipped() {
+		assertRows(parse("\uFEFF\"a\";b\n"), row("a", "b"));
+	}
+
+	@Test
+	void byteOrderMarkIsKeptWhenNotSkipped() {
+		List<String[]> rows = new ArrayList<>();
+		CSVTokenizer tokenizer = new CSVTokenizer(';', (y, cells) -> rows.add(cells), false);
+		char[] data = "\uFEFFa\n".toCharArray();
+		tokenizer.feed(data, 0, data.length);
+		tokenizer.finish();
+		assertRows(rows, row("\uFEFFa"));
+	}
+
+	@Test
+	void trailingRecordWithoutLineBreakIsEmitted() {
+		assertRows(parse("a;b\nc;d"), row("a", "b"), row("c", "d"));
+		assertRows(parse("a;\"b\nc\""), row("a", "b\nc"));
+		assertRows(parse("a;"), row("a", ""));
+	}
+
+	@Test
+	void trailingLineBreakAddsNoRecord() {
+		assertRows(parse("a\r\n"), row("a"));
+		assertRows(parse(""));
+	}
+
+	@Test
+	void customDelimiter() {
+		assertRows(parse("a\tb;c\t\"d\te\"\n", '\t'), row("a", "b;c", "d\te"));
+	}
+
+	@Test
+	void everySplitPositionGivesTheSameRows() {
+		String csv = "\uFEFFa;\"b;\"\"c\r\nd\"\"\";e\r\nf\"g;h\r\n\"i\"j;\rk";
+		List<String[]> expected = parse(csv);
+		for (int split = 0; split <= csv.length(); split++)
+			assertRows(parse(csv, ';', split, csv.length()), expected.toArray(new String[0][]));
+	}
+
+	@Test
+	void fieldAcrossBufferBoundary() {
+		StringBuilder csv = new StringBuilder();
+		csv.append("x".repeat(IMPORT_BUFFER - 4)).append(';');
+		// Das Feld beginnt vor der Puffergrenze, das Escape und der CRLF liegen genau darauf
+		String field = "ab\"\"c\r\nd";
+		csv.append('"').append(field).append("\"\r\nlast\r\n");
+
+		String[][] expected = { row("x".repeat(IMPORT_BUFFER - 4), "ab\"c\r\nd"), row("last") };
+		assertRows(parse(csv.toString(), ';', IMPORT_BUFFER, IMPORT_BUFFER), expected);
+		for (int split = IMPORT_BUFFER - 4; split < IMPORT_BUFFER + 8; split++)
+			assertRows(parse(csv.toString(), ';', split, IMPORT_BUFFER), expected);
+	}
+
+	@Test
+	void importerReadsFieldAcrossBufferBoundary(@TempDir Path dir) throws Exception {
+		String prefix = "y".repeat(IMPORT_BUFFER - 3);
+		Path file = dir.resolve("boundary.csv");
+		Files.write(file, (prefix + ";\"q\"\"\r\nr\";z\r\n").getBytes(StandardCharsets.UTF_8));
+
+		String[][] grid = CSVImporter.readCSV(file.toString(), ';').getGrid();
+		assertArrayEquals(new String[][] { row(prefix, "q\"\r\nr", "z") }, grid);
+	}
+
+	private static String[] row(String... cells) {
+		return cells;
+	}
+
+	private static List<String[]> parse(String csv) {
+		return parse(csv, ';');
+	}
+
+	private static List<String[]> parse(String csv, char delimiter) {
+		return parse(csv, delimiter, csv.length(), Math.max(1, csv.length()));
+	}
+
+	/**
+	 * Übergibt die Daten wie der Importer in Blöcken. Der erste Block endet bei
+	 * first, danach folgen Blöcke der Größe size.
+	 */
+	private static List<String[]> parse(String csv, char delimiter, int first, int size) {
+		List<String[]> rows = new ArrayList<>();
+		CSVTokenizer tokenizer = new CSVTokenizer(delimiter, (y, cells) -> {
+			assertEquals(rows.size(), y);
+			rows.add(cells);
+		});
+		char[] data = csv.toCharArray();
+		int offset = 0;
+		int length = Math.min(first, data.length);
+		do {
+			tokenizer.feed(data, offset, length);
+			offset += length;
+			length = Math.min(size, data.length - offset);
+		} while (length > 0);
+		tokenizer.finish();
+		return rows;
+	}
+
+	private static void assertRows(List<String[]> actual, String[]... expected) {
+		assertEquals(expected.length, actual.size(), () -> "rows: " + toString(actual));
+		for (int i = 0; i < expected.length; i++)
+			assertArrayEquals(expected[i], actual.get(i), "row " + i);
+	}
+
+	private static String toString(List<String[]> rows) {
+		StringBuilder result = new StringBuilder();
+		for (String[] row : rows)
+			result.append(Arrays.toString(row));
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * ExcelAndCSVToArray
+ * ContentSnapshotTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft, dass {@link ContentSnapshot} Inhalte samt Typen und Wörterbüchern
+ * unverändert zurückliest und beschädigte Snapshots mit einer
+ * {@link IOException} ablehnt.
+ *
+ * @author Juhu1705
+ * @category Import / Export
+ */
+class ContentSnapshotTest {
+
+	@Test
+	void roundTripKeepsTypesAndDictionaries(@TempDir Path dir) throws Exception {
+		WriteableContent content = new WriteableContent("Tabelle");
+		content.setStartTable(2);
+		// Vor dem Einschalten gesetzt, also nicht im Wörterbuch
+		content.addCell(new Vec2i(3, 0), "früh");
+
+		content.enableDictionaryEncoding(4);
+		String[] codes = { "A", "B", "C" };
+		for (int y = 0; y < 10; y++) {
+			content.addCell(new Vec2i(0, y), codes[y % codes.length]);
+			content.addCell(new Vec2i(2, y), "Wert " + y);
+		}
+		content.addNumber(new Vec2i(1, 0), 1.5);
+		content.addBoolean(new Vec2i(1, 2), true);
+		content.addDate(new Vec2i(1, 3), LocalDateTime.of(2021, 9, 1, 12, 30));
+		content.addBlank(new Vec2i(1, 5));
+		content.addCell(new Vec2i(1, 7), "x;\"y\"\nz");
+		content.addCell(new Vec2i(1, 9), "äöü €");
+		content.addCell(new Vec2i(3, 4), "spät");
+		content.addNumber(new Vec2i(5, 8), -0.25);
+
+		assertTrue(content.isDictionaryEncoded(0));
+		assertFalse(content.isDictionaryEncoded(2), "Die Spalte sollte über dem Limit liegen");
+
+		Path file = dir.resolve("snapshot.bin");
+		ContentSnapshot.write(file, content);
+		WriteableContent read = ContentSnapshot.read(file);
+
+		assertSameContent(content, read);
+		assertEquals("Tabelle", read.getName());
+		assertEquals(2, read.getStartTable());
+		assertEquals(List.of("A", "B", "C"), read.getDictionary(0));
+		assertFalse(read.isDictionaryEncoded(2));
+		assertTrue(read.isDictionaryEncoded(3));
+	}
+
+	@Test
+	void roundTripWithoutDictionaries(@TempDir Path dir) throws Exception {
+		WriteableContent content = new WriteableContent();
+		content.addGrid(new Vec2i(0, 0), new String[] { "a", "b" }, new String[] { "", "d" });
+		content.addCell(new Vec2i(4, 6), "weit weg");
+		content.addBoolean(new Vec2i(1, 6), false);
+
+		Path file = dir.resolve("plain.bin");
+		ContentSnapshot.write(file, content);
+		WriteableContent read = ContentSnapshot.read(file);
+
+		assertSameContent(content, read);
+		for (int x = 0; x <= 4; x++)
+			assertFalse(read.isDictionaryEncoded(x));
+	}
+
+	@Test
+	void truncatedSnapshotIsRejected() throws Exception {
+		byte[] bytes = snapshot();
+		for (int length = 0; length < bytes.length; length++) {
+			ByteBuffer buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, length));
+			assertThrows(IOException.class, () -> ContentSnapshot.read(buffer), "Länge " + length);
+		}
+	}
+
+	@Test
+	void wrongMagicIsRejected() throws Exception {
+		byte[] bytes = snapshot();
+		bytes[0] ^= 0x20;
+		assertThrows(IOException.class, () -> ContentSnapshot.read(ByteBuffer.wrap(bytes)));
+	}
+
+	@Test
+	void unknownVersionIsRejected() throws Exception {
+		byte[] bytes = snapshot();
+		bytes[5] = ContentSnapshot.VERSION + 1;
+		assertThrows(IOException.class, () -> ContentSnapshot.read(ByteBuffer.wrap(bytes)));
+	}
+
+	@Test
+	void oversizedLengthIsRejectedBeforeAllocating() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(ContentSnapshot.MAGIC);
+		out.writeShort(ContentSnapshot.VERSION);
+		out.writeInt(Integer.MAX_VALUE - 8);
+		out.writeInt(-1);
+		assertThrows(IOException.class, () -> ContentSnapshot.read(ByteBuffer.wrap(bytes.toByteArray())));
+	}
+
+	@Test
+	void oversizedDictionaryIsRejectedBeforeAllocating() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(ContentSnapshot.MAGIC);
+		out.writeShort(ContentSnapshot.VERSION);
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeInt(1);
+		out.writeInt(9);
+		out.writeInt(1);
+		out.writeByte(1);
+		out.writeInt(Integer.MAX_VALUE);
+		assertThrows(IOException.class, () -> ContentSnapshot.read(ByteBuffer.wrap(bytes.toByteArray())));
+	}
+
+	/**
+	 * @return Ein kleiner Snapshot mit gemischten Spalten
+	 */
+	private static byte[] snapshot() throws IOException {
+		WriteableContent content = new WriteableContent("Kurz").enableDictionaryEncoding();
+		content.addLine(new Vec2i(0, 0), "a", "b", "a");
+		content.addNumber(new Vec2i(1, 2), 3);
+		content.addBlank(new Vec2i(0, 3));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ContentSnapshot.write(bytes, content);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Vergleicht Text, Art und Zahl jeder Zelle.
+	 */
+	private static void assertSameContent(WriteableContent expected, WriteableContent actual) {
+		assertEquals(expected.getCellCount(), actual.getCellCount());
+		assertArrayEquals(expected.getGrid(), actual.getGrid());
+		Vec2i max = expected.getMaxLength();
+		for (int y = 0; y <= max.y; y++) {
+			for (int x = 0; x <= max.x; x++) {
+				Vec2i position = new Vec2i(x, y);
+				ValueType type = expected.getTypeAt(position);
+				assertEquals(type, actual.getTypeAt(position), position.toString());
+				if (type != null && type != ValueType.STRING)
+					assertEquals(expected.cells().getNumber(x, y), actual.cells().getNumber(x, y), position.toString());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * ExcelAndCSVToArray
+ * ParallelCSVReaderTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleicht {@link CSVImporter#readCSVParallel(String, char, ForkJoinPool)}
+ * mit dem sequentiellen {@link CSVImporter#readCSV(String, char)}.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+class ParallelCSVReaderTest {
+
+	private static final int ROWS = 300_000;
+
+	@Test
+	void parallelReadMatchesSequentialRead(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("mixed.csv");
+		write(file, ';', new Random(1705));
+		assertSameContent(file, ';', 4);
+	}
+
+	@Test
+	void parallelReadMatchesSequentialReadWithNonAsciiDelimiter(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("section.csv");
+		write(file, '§', new Random(1705));
+		assertSameContent(file, '§', 4);
+	}
+
+	private static void assertSameContent(Path file, char delimiter, int parallelism) throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			if (delimiter <= 0x7F) {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					long[] bounds = ParallelCSVReader.split(channel, parallelism * 4L, delimiter);
+					assertTrue(bounds.length > 3, "Die Datei sollte in mehrere Blöcke geteilt werden");
+				}
+			}
+
+			String[][] sequential = CSVImporter.readCSV(file.toString(), delimiter).getGrid();
+			String[][] parallel = CSVImporter.readCSVParallel(file.toString(), delimiter, pool).getGrid();
+			assertArrayEquals(sequential, parallel);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Schreibt einige MB an Zeilen mit Zeilenumbrüchen in Anführungszeichen,
+	 * einzelnen Anführungszeichen in Feldern ohne Anführungszeichen sowie
+	 * gemischten CRLF und LF Zeilenenden.
+	 */
+	private static void write(Path file, char delimiter, Random random) throws Exception {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("\uFEFF\"id\"" + delimiter + "text\r\n");
+			for (int y = 0; y < ROWS; y++) {
+				String end = random.nextBoolean() ? "\r\n" : "\n";
+				switch (random.nextInt(5)) {
+				case 0:
+					writer.write(y + "\"inch" + delimiter + "ab" + end);
+					break;
+				case 1:
+					writer.write("\"multi\nline \"\"q\"\" " + delimiter + "x\"" + delimiter + y + end);
+					break;
+				case 2:
+					writer.write("\"q\"tail" + delimiter + "\"\"" + delimiter + "\"\r\n\"" + end);
+					break;
+				case 3:
+					writer.write(end);
+					break;
+				default:
+					writer.write("" + y + delimiter + "plain ü " + y + end);
+				}
+			}
+		}
+	}
+
+}
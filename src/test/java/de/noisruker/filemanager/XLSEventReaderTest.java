@@ -0,0 +1,269 @@
+/*
+ * ExcelAndCSVToArray
+ * XLSEventReaderTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prüft, dass {@link XLSEventReader} über
+ * {@link ExcelImporter#readXLSStreamed(String)} und
+ * {@link ExcelImporter#readXLSStreamedImproved(String)} dieselben Texte und
+ * {@link ValueType}s liefert wie {@link ExcelImporter#readXLSImproved(String)}.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+class XLSEventReaderTest {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2021, 1, 1, 12, 30);
+
+	private static final int BOUND_SHEET = 0x85, BOF = 0x809;
+
+	@Test
+	void streamedReadersMatchWorkbookReader(@TempDir Path dir) throws Exception {
+		Path file = write(dir.resolve("typed.xls"), false);
+		assertSameContent(file);
+		assertEquals(DATE.toString(), ExcelImporter.readXLSStreamed(file.toString()).getStringAt(new Vec2i(2, 1)));
+	}
+
+	@Test
+	void datesOf1904WorkbooksMatchWorkbookReader(@TempDir Path dir) throws Exception {
+		Path file = write(dir.resolve("typed1904.xls"), true);
+		assertSameContent(file);
+		assertEquals(DATE.toString(), ExcelImporter.readXLSStreamed(file.toString()).getStringAt(new Vec2i(2, 1)));
+	}
+
+	private static void assertSameContent(Path file) throws Exception {
+		List<WriteableContent> expected = ExcelImporter.readXLSImproved(file.toString());
+		List<WriteableContent> streamed = ExcelImporter.readXLSStreamedImproved(file.toString());
+
+		assertEquals(2, expected.size());
+		assertEquals(expected.size(), streamed.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getName(), streamed.get(i).getName());
+			assertSameContent(expected.get(i), streamed.get(i));
+		}
+		assertSameContent(expected.get(0), ExcelImporter.readXLSStreamed(file.toString()));
+	}
+
+	private static void assertSameContent(WriteableContent expected, WriteableContent actual) {
+		assertArrayEquals(expected.getGrid(), actual.getGrid());
+		Vec2i max = expected.getMaxLength();
+		for (int y = 0; y <= max.y; y++) {
+			for (int x = 0; x <= max.x; x++) {
+				Vec2i position = new Vec2i(x, y);
+				assertEquals(expected.getStringAt(position), actual.getStringAt(position), "cell " + x + "|" + y);
+				assertEquals(expected.getTypeAt(position), actual.getTypeAt(position), "cell " + x + "|" + y);
+			}
+		}
+	}
+
+	/**
+	 * Schreibt zwei Tabellen mit gemeinsamen Texten, Zahlen, Datumsangaben,
+	 * Wahrheitswerten, leeren Zellen und Formeln mit Text als Ergebnis. Ganze
+	 * Zahlen werden danach als RK und MulRK Einträge gespeichert, wie Excel es
+	 * tut.
+	 */
+	private static Path write(Path file, boolean date1904) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+			if (date1904) {
+				for (Record record : workbook.getInternalWorkbook().getRecords())
+					if (record instanceof DateWindow1904Record)
+						((DateWindow1904Record) record).setWindowing((short) 1);
+			}
+			HSSFSheet sheet = workbook.createSheet("Werte");
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+			CellStyle blankStyle = workbook.createCellStyle();
+			blankStyle.setWrapText(true);
+
+			Row row = sheet.createRow(0);
+			String[] header = { "Name", "Zahl", "Datum", "Bool", "Formel", "Leer", "Leer", "Ganz", "Ganz", "Ganz" };
+			for (int x = 0; x < header.length; x++)
+				row.createCell(x).setCellValue(header[x]);
+
+			String[] names = { "A", "B", "A" };
+			for (int y = 1; y <= 6; y++) {
+				row = sheet.createRow(y);
+				row.createCell(0).setCellValue(names[y % names.length]);
+				row.createCell(1).setCellValue(y * 1.25);
+				// setCellValue(LocalDateTime) beachtet die Zählung ab 1904 nicht
+				row.createCell(2).setCellValue(DateUtil.getExcelDate(DATE.plusDays(y - 1), date1904));
+				row.getCell(2).setCellStyle(dateStyle);
+				row.createCell(3).setCellValue(y % 2 == 0);
+				row.createCell(4).setCellFormula("A" + (y + 1) + "&\"x\"");
+				row.createCell(5).setCellStyle(blankStyle);
+				row.createCell(6).setCellStyle(blankStyle);
+				row.createCell(7).setCellValue(y * 10);
+				row.createCell(8).setCellValue(-y);
+				row.createCell(9).setCellValue(y * 1000);
+				row.createCell(11).setCellValue(y);
+				row.createCell(13).setCellStyle(blankStyle);
+			}
+			row = sheet.createRow(8);
+			row.createCell(0).setCellFormula("B2*2");
+			row.createCell(1).setCellFormula("D3");
+			row.createCell(2).setCellFormula("C2+1");
+			row.getCell(2).setCellStyle(dateStyle);
+
+			sheet = workbook.createSheet("Zweite");
+			sheet.createRow(0).createCell(1).setCellValue("A");
+			sheet.createRow(2).createCell(0).setCellValue(0.5);
+
+			workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+			workbook.write(bytes);
+		}
+
+		byte[] stream;
+		try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(bytes.toByteArray()));
+				InputStream in = fs.createDocumentInputStream("Workbook")) {
+			stream = in.readAllBytes();
+		}
+		stream = packNumbers(stream);
+		assertTrue(count(stream, RKRecord.sid) > 0);
+		assertTrue(count(stream, MulRKRecord.sid) > 0);
+		assertTrue(count(stream, MulBlankRecord.sid) > 0);
+		assertTrue(count(stream, StringRecord.sid) > 0);
+
+		try (POIFSFileSystem fs = new POIFSFileSystem(); OutputStream out = Files.newOutputStream(file)) {
+			fs.createDocument(new ByteArrayInputStream(stream), "Workbook");
+			fs.writeFilesystem(out);
+		}
+		return file;
+	}
+
+	/**
+	 * Ersetzt Zahlen, die sich als RK Wert darstellen lassen, durch RK
+	 * Einträge und zusammenhängende Zahlen einer Zeile durch MulRK Einträge.
+	 * Die Positionen der Tabellen in den BoundSheet Einträgen werden angepasst.
+	 */
+	private static byte[] packNumbers(byte[] stream) {
+		ByteBuffer in = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer out = ByteBuffer.allocate(stream.length).order(ByteOrder.LITTLE_ENDIAN);
+		Map<Integer, Integer> offsets = new HashMap<>();
+		List<Integer> boundSheets = new ArrayList<>();
+
+		while (in.hasRemaining()) {
+			int start = in.position();
+			int sid = in.getShort(start) & 0xFFFF;
+			int size = in.getShort(start + 2) & 0xFFFF;
+			offsets.put(start, out.position());
+
+			if (sid != NumberRecord.sid || rk(in.getDouble(start + 10)) == null) {
+				if (sid == BOUND_SHEET)
+					boundSheets.add(out.position());
+				out.put(stream, start, 4 + size);
+				in.position(start + 4 + size);
+				continue;
+			}
+
+			// Folgende Zahlen derselben Zeile in den nächsten Spalten sammeln
+			int row = in.getShort(start + 4) & 0xFFFF, column = in.getShort(start + 6) & 0xFFFF;
+			List<Integer> run = new ArrayList<>();
+			int next = start;
+			while (next < stream.length && (in.getShort(next) & 0xFFFF) == NumberRecord.sid
+					&& (in.getShort(next + 4) & 0xFFFF) == row
+					&& (in.getShort(next + 6) & 0xFFFF) == column + run.size()
+					&& rk(in.getDouble(next + 10)) != null) {
+				offsets.put(next, out.position());
+				run.add(next);
+				next += 4 + (in.getShort(next + 2) & 0xFFFF);
+			}
+
+			if (run.size() == 1) {
+				out.putShort(RKRecord.sid).putShort((short) 10);
+				out.putShort((short) row).putShort((short) column).putShort(in.getShort(start + 8));
+				out.putInt(rk(in.getDouble(start + 10)));
+			} else {
+				out.putShort(MulRKRecord.sid).putShort((short) (6 + 6 * run.size()));
+				out.putShort((short) row).putShort((short) column);
+				for (int record : run)
+					out.putShort(in.getShort(record + 8)).putInt(rk(in.getDouble(record + 10)));
+				out.putShort((short) (column + run.size() - 1));
+			}
+			in.position(next);
+		}
+
+		for (int boundSheet : boundSheets) {
+			int bof = out.getInt(boundSheet + 4);
+			assertEquals(BOF, out.getShort(offsets.get(bof)) & 0xFFFF);
+			out.putInt(boundSheet + 4, offsets.get(bof));
+		}
+		byte[] packed = new byte[out.position()];
+		out.flip().get(packed);
+		return packed;
+	}
+
+	/**
+	 * @return Der RK Wert der Zahl oder null, wenn sie sich nicht exakt
+	 *         darstellen lässt
+	 */
+	private static Integer rk(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1 << 29)
+			return ((int) value << 2) | 2;
+		long bits = Double.doubleToLongBits(value);
+		if ((bits & 0x3FFFFFFFFL) == 0)
+			return (int) (bits >>> 32);
+		return null;
+	}
+
+	private static int count(byte[] stream, int sid) {
+		ByteBuffer in = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+		int count = 0;
+		for (int position = 0; position < stream.length; position += 4 + (in.getShort(position + 2) & 0xFFFF))
+			if ((in.getShort(position) & 0xFFFF) == sid)
+				count++;
+		return count;
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * ExcelAndCSVToArray
+ * XLSXSheetHandlerTest.java
+ * Copyright © 2021 Fabius Mettner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.noisruker.filemanager;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prüft, dass die SAX Leser für .xlsx Dateien dieselben Texte und
+ * {@link ValueType}s liefern wie {@link ExcelImporter#readXLSX(String)}.
+ *
+ * @author Juhu1705
+ * @category Import
+ */
+class XLSXSheetHandlerTest {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2021, 1, 1, 12, 30);
+
+	@Test
+	void streamedAndLazyReadersMatchWorkbookReader(@TempDir Path dir) throws Exception {
+		Path file = write(dir.resolve("typed.xlsx"), false);
+		assertSameContent(file);
+		assertEquals(ValueType.DATE, ExcelImporter.readXLSXStreamed(file.toString()).getTypeAt(new Vec2i(3, 0)));
+		assertEquals(DATE.toString(), ExcelImporter.readXLSXStreamed(file.toString()).getStringAt(new Vec2i(3, 0)));
+	}
+
+	@Test
+	void datesOf1904WorkbooksMatchWorkbookReader(@TempDir Path dir) throws Exception {
+		Path file = write(dir.resolve("typed1904.xlsx"), true);
+		assertSameContent(file);
+		assertEquals(DATE.toString(), ExcelImporter.readXLSXStreamed(file.toString()).getStringAt(new Vec2i(3, 0)));
+	}
+
+	@Test
+	void projectedReadKeepsTypes(@TempDir Path dir) throws Exception {
+		Path file = write(dir.resolve("projected.xlsx"), false);
+		WriteableContent projected = ExcelImporter.readXLSXStreamed(file.toString(),
+				new ImportOptions().columns(3, 1));
+		assertEquals(ValueType.DATE, projected.getTypeAt(new Vec2i(0, 0)));
+		assertEquals(ValueType.NUMERIC, projected.getTypeAt(new Vec2i(1, 0)));
+		assertEquals(12.5, projected.getNumberAt(new Vec2i(1, 0)));
+	}
+
+	private static void assertSameContent(Path file) throws Exception {
+		WriteableContent expected = ExcelImporter.readXLSX(file.toString());
+
+		WriteableContent lazy;
+		try (LazyWorkbook workbook = ExcelImporter.openXLSXLazy(file.toString())) {
+			lazy = workbook.getSheet(0);
+		}
+		// Die Vorschau lässt leere Zeilen aus, verglichen werden die Zeilen davor
+		WriteableContent preview = ExcelImporter.peekXLSX(file.toString(), 2).get(0).getContent();
+
+		assertSameContent(expected, ExcelImporter.readXLSXStreamed(file.toString()));
+		assertSameContent(expected, lazy);
+		assertSameRows(expected, preview, 2);
+	}
+
+	private static void assertSameContent(WriteableContent expected, WriteableContent actual) {
+		assertArrayEquals(expected.getGrid(), actual.getGrid());
+		assertSameRows(expected, actual, expected.getGrid().length);
+	}
+
+	private static void assertSameRows(WriteableContent expected, WriteableContent actual, int rows) {
+		String[][] grid = expected.getGrid();
+		for (int y = 0; y < rows; y++) {
+			for (int x = 0; x < grid[y].length; x++) {
+				Vec2i position = new Vec2i(x, y);
+				assertEquals(expected.getStringAt(position), actual.getStringAt(position), "cell " + x + "|" + y);
+				assertEquals(expected.getTypeAt(position), actual.getTypeAt(position), "cell " + x + "|" + y);
+			}
+		}
+	}
+
+	/**
+	 * Schreibt eine Tabelle mit Text, Zahlen, Wahrheitswerten, Datum, leeren
+	 * Zellen und Formeln mit Zahl, Text, Wahrheitswert und Fehler als Ergebnis.
+	 */
+	private static Path write(Path file, boolean date1904) throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			if (date1904) {
+				if (workbook.getCTWorkbook().isSetWorkbookPr())
+					workbook.getCTWorkbook().getWorkbookPr().setDate1904(true);
+				else
+					workbook.getCTWorkbook().addNewWorkbookPr().setDate1904(true);
+			}
+			XSSFSheet sheet = workbook.createSheet("Typen");
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+
+			Row row = sheet.createRow(0);
+			row.createCell(0).setCellValue("text");
+			row.createCell(1).setCellValue(12.5);
+			row.createCell(2).setCellValue(true);
+			row.createCell(3).setCellValue(DATE);
+			row.getCell(3).setCellStyle(dateStyle);
+			row.createCell(4).setCellStyle(dateStyle);
+			row.createCell(5).setCellValue(false);
+
+			row = sheet.createRow(1);
+			row.createCell(0).setCellFormula("B1*2");
+			row.createCell(1).setCellFormula("\"a\"&\"b\"");
+			row.createCell(2).setCellFormula("1>0");
+			row.createCell(3).setCellFormula("D1+1");
+			row.getCell(3).setCellStyle(dateStyle);
+			row.createCell(4).setCellFormula("1/0");
+
+			row = sheet.createRow(3);
+			row.createCell(0).setCellValue(3);
+			row.createCell(2).setCellValue("TRUE");
+
+			workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+			try (OutputStream out = Files.newOutputStream(file)) {
+				workbook.write(out);
+			}
+		}
+		return file;
+	}
+
+}